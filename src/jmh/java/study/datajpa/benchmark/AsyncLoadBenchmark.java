@@ -0,0 +1,70 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.config.VirtualThreads;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   @Async 리포지토리 메서드에 동시에 concurrency개의 요청을 넣고 전부 끝날 때까지의 처리량 비교
+*   platform -> 플랫폼 스레드 풀(커넥션 풀과 같은 크기), virtual -> 작업마다 가상 스레드 (JDK 21 이상에서만 실행할 수 있다)
+*   JDK 21 미만에서 virtual을 실행하면 플랫폼 스레드 결과가 섞이지 않도록 트라이얼을 실패시킨다.
+* */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AsyncLoadBenchmark {
+
+    private static final int POOL_SIZE = 50;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"100", "1000"})
+    private int concurrency;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("virtual".equals(threads) && !VirtualThreads.isSupported()) {
+            throw new IllegalStateException("virtual 은 JDK 21 이상에서 실행해야 합니다. java.version = " + System.getProperty("java.version"));
+        }
+        context = BenchmarkApplication.start(
+                "datajpa.async.virtual-threads=" + "virtual".equals(threads),
+                "datajpa.async.pool-size=" + POOL_SIZE,
+                "datajpa.async.queue-capacity=" + concurrency,
+                "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE);
+        BenchmarkApplication.generateData(context, 50, 20);
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void concurrentQueries(Blackhole blackhole) {
+        CompletableFuture<?>[] futures = new CompletableFuture[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            futures[i] = memberRepository.findAsyncMemberDtoByUsername("member" + (i % 10))
+                    .thenAccept(blackhole::consume);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+}
@@ -0,0 +1,56 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+
+/*
+*   회원 1000명을 저장(persist + flush)할 때 감사(audit) 처리 비용 비교 -> 측정 후 롤백한다.
+*   cached=false 는 엔티티마다 AuditorAware(UUID) + 현재 시간, true 는 트랜잭션/flush 마다 한번 (AuditingConfig)
+* */
+@State(Scope.Benchmark)
+public class AuditingBenchmark {
+
+    private static final int MEMBER_COUNT = 1000;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private TransactionTemplate transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("datajpa.auditing.cached=" + cached);
+        em = context.getBean(EntityManager.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void persistMembers() {
+        transaction.executeWithoutResult(status -> {
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                em.persist(new Member("member" + i, i % 100));
+            }
+            em.flush();
+            em.clear();
+            status.setRollbackOnly();
+        });
+    }
+}
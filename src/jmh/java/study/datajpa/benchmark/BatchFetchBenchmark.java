@@ -0,0 +1,71 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.TeamDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+/*
+*   지연 로딩할 때 batch size 별 비교 -> 1이면 batch fetch를 하지 않는 것과 같다(N + 1).
+*   - memberToTeam  : Member.team 프록시 (default_batch_fetch_size) -> Team 조회 SQL이 1000번 -> 1000 / size 번으로 줄어든다.
+*   - teamToMembers : /teams 목록과 같은 경로, 팀 100개의 Team.members 컬렉션 (@BatchSize 값을 파라미터로 바꾼다)
+* */
+@State(Scope.Benchmark)
+public class BatchFetchBenchmark {
+
+    private static final int TEAMS_PAGE_SIZE = 100;
+
+    @Param({"1", "16", "100"})
+    private int batchFetchSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TeamRepository teamRepository;
+    private TransactionTemplate transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CollectionBatchSizeIntegrator.set(Team.class, "members", batchFetchSize);
+        context = BenchmarkApplication.start(
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "spring.jpa.properties.hibernate.default_batch_fetch_size=" + batchFetchSize,
+                CollectionBatchSizeIntegrator.PROPERTY);
+        BenchmarkApplication.generateData(context, 1000, 1);
+        memberRepository = context.getBean(MemberRepository.class);
+        teamRepository = context.getBean(TeamRepository.class);
+        transaction = BenchmarkApplication.readOnlyTransaction(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void memberToTeam(Blackhole blackhole) {
+        transaction.executeWithoutResult(status -> {
+            for (Member member : memberRepository.findMemberCustom()) {
+                blackhole.consume(member.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void teamToMembers(Blackhole blackhole) {
+        transaction.executeWithoutResult(status -> teamRepository.findAll(PageRequest.of(0, TEAMS_PAGE_SIZE))
+                .map(TeamDto::new)
+                .forEach(blackhole::consume));
+    }
+}
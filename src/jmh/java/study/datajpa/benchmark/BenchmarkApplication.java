@@ -0,0 +1,67 @@
+package study.datajpa.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.TeamJpaRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/*
+*   벤치마크용 스프링 컨텍스트 -> 인메모리 H2를 사용하고 SQL 로그와 웹 서버는 끈다.
+*   커맨드라인 인자로 넘겨야 application.yml 설정보다 우선 적용된다.
+* */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(DataJpaApplication.class).run(args.toArray(new String[0]));
+    }
+
+    // teamCount개의 팀에 membersPerTeam명씩 저장한다. username은 "member0" ~ "member9"가 반복된다.
+    public static void generateData(ConfigurableApplicationContext context, int teamCount, int membersPerTeam) {
+        TeamJpaRepository teamJpaRepository = context.getBean(TeamJpaRepository.class);
+        MemberJpaRepository memberJpaRepository = context.getBean(MemberJpaRepository.class);
+
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < teamCount; i++) {
+            teams.add(new Team("team" + i));
+        }
+        teamJpaRepository.saveAllBatched(teams, 100);
+
+        List<Member> members = new ArrayList<>();
+        for (Team team : teams) {
+            for (int i = 0; i < membersPerTeam; i++) {
+                members.add(new Member("member" + (members.size() % 10), members.size() % 100, team));
+            }
+        }
+        memberJpaRepository.saveAllBatched(members, 500);
+    }
+
+    public static TransactionTemplate readOnlyTransaction(ConfigurableApplicationContext context) {
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transaction.setReadOnly(true);
+        return transaction;
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.benchmark;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+*   @BatchSize로 고정된 컬렉션의 batch size를 벤치마크 파라미터로 바꾼다.
+*   Integrator는 persister를 만들기 전에 실행되므로 매핑 정보(Collection.batchSize)를 바꾸면 그대로 적용된다.
+*   spring.jpa.properties.hibernate.integrator_provider 에 이 클래스 이름을 넣고, 컨텍스트를 띄우기 전에 batchSize를 정한다.
+* */
+public class CollectionBatchSizeIntegrator implements IntegratorProvider, Integrator {
+
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.integrator_provider=" + CollectionBatchSizeIntegrator.class.getName();
+
+    // 벤치마크 트라이얼은 컨텍스트를 하나씩 순서대로 띄우므로 static으로 넘긴다. (0이면 매핑을 바꾸지 않는다)
+    private static volatile int batchSize;
+    private static volatile String role;
+
+    public static void set(Class<?> ownerType, String collection, int size) {
+        role = ownerType.getName() + "." + collection;
+        batchSize = size;
+    }
+
+    @Override
+    public List<Integrator> getIntegrators() {
+        return Collections.singletonList(this);
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        if (batchSize <= 0) {
+            return;
+        }
+        for (org.hibernate.mapping.Collection collection : metadata.getCollectionBindings()) {
+            if (collection.getRole().equals(role)) {
+                collection.setBatchSize(batchSize);
+            }
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,75 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/*
+*   연관된 Team까지 조회하는 방법별 비교 -> fetch join vs @EntityGraph vs 지연 로딩(batch fetch, BatchFetchBenchmark 참고)
+*   모든 방법이 같은 row(회원 전체)를 읽어야 비교가 되므로, username 조건이 붙은 findEntityGraphByUsername 대신
+*   같은 JPQL에 @NamedEntityGraph("Member.all")를 fetch graph 힌트로 넘긴다. (@EntityGraph의 기본값이 FETCH)
+* */
+@State(Scope.Benchmark)
+public class FetchStrategyBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private EntityManager em;
+    private TransactionTemplate transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 2차 캐시를 켜두면 지연 로딩도 캐시에서 조회되므로, 조회 방식 자체를 비교하기 위해 끈다.
+        context = BenchmarkApplication.start("spring.jpa.properties.hibernate.cache.use_second_level_cache=false");
+        BenchmarkApplication.generateData(context, 50, 20);
+        memberRepository = context.getBean(MemberRepository.class);
+        em = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        transaction = BenchmarkApplication.readOnlyTransaction(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void fetchJoin(Blackhole blackhole) {
+        transaction.executeWithoutResult(status -> consume(memberRepository.findMemberFetchJoin(), blackhole));
+    }
+
+    @Benchmark
+    public void entityGraph(Blackhole blackhole) {
+        transaction.executeWithoutResult(status -> consume(memberRepository.findMemberEntityGraph(), blackhole));
+    }
+
+    @Benchmark
+    public void namedEntityGraph(Blackhole blackhole) {
+        transaction.executeWithoutResult(status -> consume(em.createQuery("select m from Member m", Member.class)
+                .setHint("javax.persistence.fetchgraph", em.getEntityGraph("Member.all"))
+                .getResultList(), blackhole));
+    }
+
+    @Benchmark
+    public void lazyLoading(Blackhole blackhole) {
+        transaction.executeWithoutResult(status -> consume(memberRepository.findMemberCustom(), blackhole));
+    }
+
+    private void consume(List<Member> members, Blackhole blackhole) {
+        for (Member member : members) {
+            blackhole.consume(member.getTeam().getName());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/*
+*   id 개수별 in 절 조회 비교 (회원 10만명)
+*   - singleQuery : 모든 id를 in 절 하나에 넣는다. (JpaRepository 기본 findAllById)
+*   - chunked     : MemberRepository.findAllById -> 2의 제곱수로 맞춘 1024개 단위로 나눠서 동시에 조회한다. (InQueryExecutor)
+* */
+@State(Scope.Benchmark)
+public class InQueryBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000", "100000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private EntityManager em;
+    private TransactionTemplate transaction;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false");
+        BenchmarkApplication.generateData(context, 1000, 100);
+        memberRepository = context.getBean(MemberRepository.class);
+        em = context.getBean(EntityManager.class);
+        transaction = BenchmarkApplication.readOnlyTransaction(context);
+        ids = transaction.execute(status -> em.createQuery("select m.id from Member m order by m.id", Long.class)
+                .setMaxResults(size)
+                .getResultList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int singleQuery() {
+        return transaction.execute(status -> em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .size());
+    }
+
+    @Benchmark
+    public int chunked() {
+        return memberRepository.findAllById(ids).size();
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.entity.Item;
+import study.datajpa.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/*
+*   Item 1000건 저장(insertIgnoreAll) -> 랜덤 UUID vs 시간 순서 UUID(TimeOrderedId)
+*   테이블이 커질수록 랜덤 id는 기본키 인덱스 전체에 흩어져서 insert 되므로 차이가 벌어진다.
+* */
+@State(Scope.Benchmark)
+public class ItemIdBenchmark {
+
+    @Param({"random", "timeOrdered"})
+    private String idType;
+
+    private ConfigurableApplicationContext context;
+    private ItemRepository itemRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        itemRepository = context.getBean(ItemRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int insertItems() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add("random".equals(idType) ? new Item(UUID.randomUUID().toString()) : Item.create());
+        }
+        return itemRepository.insertIgnoreAll(items);
+    }
+}
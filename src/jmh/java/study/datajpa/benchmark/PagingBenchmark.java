@@ -0,0 +1,63 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+/*
+*   offset 페이징 vs 키셋 페이징 -> 페이지 깊이(page)에 따른 비용 비교
+* */
+@State(Scope.Benchmark)
+public class PagingBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"0", "100", "990"})
+    private int page;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate transaction;
+    private Long cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.generateData(context, 100, 1_000);
+        memberRepository = context.getBean(MemberRepository.class);
+        transaction = BenchmarkApplication.readOnlyTransaction(context);
+
+        // 키셋 페이징은 같은 위치의 페이지를 조회하도록 직전 페이지의 마지막 id를 커서로 사용한다.
+        cursor = page == 0 ? 0L : transaction.execute(status -> memberRepository
+                .findAll(PageRequest.of(page - 1, PAGE_SIZE, Sort.by("id")))
+                .getContent().get(PAGE_SIZE - 1).getId());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Member> offset() {
+        return transaction.execute(status -> memberRepository.findAll(PageRequest.of(page, PAGE_SIZE, Sort.by("id"))));
+    }
+
+    @Benchmark
+    public Slice<Member> keyset() {
+        return transaction.execute(status -> memberRepository.findByIdGreaterThan(cursor,
+                PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.ASC, "id"))));
+    }
+}
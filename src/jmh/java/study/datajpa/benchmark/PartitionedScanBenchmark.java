@@ -0,0 +1,61 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.batch.PartitionedScan;
+import study.datajpa.batch.PartitionedScanner;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.stream.Collectors;
+
+/*
+*   전체 회원(10만건)의 나이 합계 -> findAll() 한번 vs PartitionedScanner 스레드 수별 비교
+*   스레드를 늘려도 DB(H2)가 포화되는 지점부터는 처리량이 더 늘지 않는다.
+* */
+@State(Scope.Benchmark)
+public class PartitionedScanBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private PartitionedScanner partitionedScanner;
+    private TransactionTemplate transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "spring.datasource.hikari.maximum-pool-size=" + Math.max(10, parallelism),
+                "datajpa.scan.parallelism=" + parallelism);
+        BenchmarkApplication.generateData(context, 1000, 100);
+        memberRepository = context.getBean(MemberRepository.class);
+        partitionedScanner = context.getBean(PartitionedScanner.class);
+        transaction = BenchmarkApplication.readOnlyTransaction(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long findAll() {
+        return transaction.execute(status -> memberRepository.findAll().stream().mapToLong(Member::getAge).sum());
+    }
+
+    @Benchmark
+    public long partitionedScan() {
+        return partitionedScanner.scan(PartitionedScan.of(Member.class).readOnly(),
+                Collectors.summingLong(Member::getAge)).getResult();
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+import study.datajpa.repository.UsernameOnlyDto;
+
+/*
+*   Projections 비교 -> 클래스 기반, 인터페이스 기반(Open Projection), 동적 프로젝션, 중첩 프로젝션
+*   조회한 값을 전부 읽어야 프록시/SpEL 평가 비용까지 측정된다.
+*   compiled=false 는 Spring Data 기본 프록시, true 는 CompiledProjectionFactory
+* */
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    @Param({"false", "true"})
+    private boolean compiled;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("datajpa.projection.compiled=" + compiled);
+        BenchmarkApplication.generateData(context, 50, 20);
+        memberRepository = context.getBean(MemberRepository.class);
+        transaction = BenchmarkApplication.readOnlyTransaction(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void classProjection(Blackhole blackhole) {
+        transaction.executeWithoutResult(status -> {
+            for (UsernameOnlyDto dto : memberRepository.findClassProjectionsByUsername("member1")) {
+                blackhole.consume(dto.getUsername());
+            }
+        });
+    }
+
+    @Benchmark
+    public void interfaceProjection(Blackhole blackhole) {
+        transaction.executeWithoutResult(status -> {
+            for (UsernameOnly usernameOnly : memberRepository.findProjectionsByUsername("member1")) {
+                blackhole.consume(usernameOnly.getUsername());
+            }
+        });
+    }
+
+    @Benchmark
+    public void dynamicProjection(Blackhole blackhole) {
+        transaction.executeWithoutResult(status -> {
+            for (UsernameOnlyDto dto : memberRepository.findProjectionsByUsername("member1", UsernameOnlyDto.class)) {
+                blackhole.consume(dto.getUsername());
+            }
+        });
+    }
+
+    @Benchmark
+    public void nestedProjection(Blackhole blackhole) {
+        transaction.executeWithoutResult(status -> {
+            for (NestedClosedProjections nested : memberRepository.findProjectionsByUsername("member1", NestedClosedProjections.class)) {
+                blackhole.consume(nested.getUsername());
+                blackhole.consume(nested.getTeam().getName());
+            }
+        });
+    }
+}
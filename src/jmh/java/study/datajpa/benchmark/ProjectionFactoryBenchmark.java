@@ -0,0 +1,82 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.projection.CompiledProjectionFactory;
+import study.datajpa.repository.MemberProjection;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+*   DB 없이 프로젝션을 만들고 값을 읽는 비용만 비교한다 -> JDK 프록시 vs 미리 만든 클래스
+*   결과 1000건을 프로젝션으로 바꾸고 getter를 한번씩 호출한다. (-prof gc 로 할당량도 같이 보면 좋다)
+* */
+@State(Scope.Benchmark)
+public class ProjectionFactoryBenchmark {
+
+    @Param({"proxy", "compiled"})
+    private String factory;
+
+    private ProjectionFactory projectionFactory;
+    private List<Member> members;
+    private List<Map<String, Object>> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        projectionFactory = "compiled".equals(factory) ? new CompiledProjectionFactory() : new SpelAwareProxyProjectionFactory();
+
+        members = new ArrayList<>();
+        rows = new ArrayList<>();
+        Team team = new Team("team");
+        for (int i = 0; i < 1000; i++) {
+            Member member = new Member("member" + i, i % 100, team);
+            members.add(member);
+
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", (long) i);
+            row.put("username", member.getUsername());
+            row.put("teamName", team.getName());
+            rows.add(row);
+        }
+    }
+
+    @Benchmark
+    public void openProjection(Blackhole blackhole) {
+        for (Member member : members) {
+            blackhole.consume(projectionFactory.createProjection(UsernameOnly.class, member).getUsername());
+        }
+    }
+
+    @Benchmark
+    public void nestedProjection(Blackhole blackhole) {
+        for (Member member : members) {
+            NestedClosedProjections nested = projectionFactory.createProjection(NestedClosedProjections.class, member);
+            blackhole.consume(nested.getUsername());
+            blackhole.consume(nested.getTeam().getName());
+        }
+    }
+
+    @Benchmark
+    public void mapProjection(Blackhole blackhole) {
+        for (Map<String, Object> row : rows) {
+            MemberProjection projection = projectionFactory.createProjection(MemberProjection.class, row);
+            blackhole.consume(projection.getId());
+            blackhole.consume(projection.getUsername());
+            blackhole.consume(projection.getTeamName());
+        }
+    }
+}
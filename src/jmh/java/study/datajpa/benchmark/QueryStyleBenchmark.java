@@ -0,0 +1,53 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+
+/*
+*   같은 조건(username)을 쿼리 메서드, @Query, Named Query로 조회할 때의 비교
+* */
+@State(Scope.Benchmark)
+public class QueryStyleBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate transaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.generateData(context, 50, 20);
+        memberRepository = context.getBean(MemberRepository.class);
+        transaction = BenchmarkApplication.readOnlyTransaction(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> derivedQuery() {
+        return transaction.execute(status -> memberRepository.findListByUsername("member1"));
+    }
+
+    @Benchmark
+    public List<Member> annotatedQuery() {
+        return transaction.execute(status -> memberRepository.findUserByUsername("member1"));
+    }
+
+    @Benchmark
+    public List<Member> namedQuery() {
+        return transaction.execute(status -> memberRepository.findByUsername("member1"));
+    }
+}
@@ -0,0 +1,49 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+*   회원 1000명 저장 -> datajpa.id.allocation-size 별 비교 (pooled-lo)
+*   1이면 persist 마다 시퀀스를 조회하고, 50이면 50건마다 한번 조회한다.
+* */
+@State(Scope.Benchmark)
+public class SequenceAllocationBenchmark {
+
+    @Param({"1", "50", "500"})
+    private int allocationSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberJpaRepository memberJpaRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("datajpa.id.allocation-size=" + allocationSize);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void insertMembers() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            members.add(new Member("member" + i, i));
+        }
+        memberJpaRepository.saveAllBatched(members, 500);
+    }
+}
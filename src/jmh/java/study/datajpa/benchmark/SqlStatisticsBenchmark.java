@@ -0,0 +1,63 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.sql.DataSource;
+
+/*
+*   SqlStatisticsDataSource로 감싼 DataSource와 감싸지 않은 DataSource 비교
+*   statistics=false 는 datajpa.sql.statistics.enabled=false (원래 HikariDataSource), true 는 JDK 프록시로 감싼 DataSource
+*   - repositoryQuery : 리포지토리 조회 (Hibernate가 Connection, PreparedStatement, ResultSet을 전부 프록시로 사용)
+*   - jdbcQuery       : JdbcTemplate 단건 조회 -> 프록시 비용이 차지하는 비율이 더 크게 보인다.
+* */
+@State(Scope.Benchmark)
+public class SqlStatisticsBenchmark {
+
+    @Param({"false", "true"})
+    private boolean statistics;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate transaction;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("datajpa.sql.statistics.enabled=" + statistics);
+        BenchmarkApplication.generateData(context, 50, 20);
+        memberRepository = context.getBean(MemberRepository.class);
+        transaction = BenchmarkApplication.readOnlyTransaction(context);
+        jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void repositoryQuery(Blackhole blackhole) {
+        transaction.executeWithoutResult(status -> {
+            for (Member member : memberRepository.findByUsername("member1")) {
+                blackhole.consume(member.getAge());
+            }
+        });
+    }
+
+    @Benchmark
+    public void jdbcQuery(Blackhole blackhole) {
+        blackhole.consume(jdbcTemplate.queryForList("select age from member where username = ?", Integer.class, "member1"));
+    }
+}
@@ -1,15 +1,17 @@
 package study.datajpa;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.datajpa.auditing.TransactionScopedAuditorAware;
 
 import java.util.Optional;
 import java.util.UUID;
 
-@EnableJpaAuditing
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
 @SpringBootApplication
 public class DataJpaApplication {
 
@@ -20,8 +22,10 @@ public class DataJpaApplication {
 
 	@Bean
 	// 실제 구현을 할때에는 SecurityContextHolder 또는 세션에서 꺼내서 넣어줄때 사용한다.
-	public AuditorAware<String> auditorProvider() {
-		return () -> Optional.of(UUID.randomUUID().toString());
+	// cached 이면 트랜잭션마다 한번만 호출한다. (AuditingConfig 참고)
+	public AuditorAware<String> auditorProvider(@Value("${datajpa.auditing.cached:true}") boolean cached) {
+		AuditorAware<String> auditorAware = () -> Optional.of(UUID.randomUUID().toString());
+		return cached ? new TransactionScopedAuditorAware<>(auditorAware) : auditorAware;
 	}
 
 }
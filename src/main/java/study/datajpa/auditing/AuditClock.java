@@ -0,0 +1,55 @@
+package study.datajpa.auditing;
+
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.util.Optional;
+
+/*
+*   감사(audit) 컬럼에 넣을 현재 시간 -> 트랜잭션 안에서는 flush 한번에 시간 하나만 사용한다.
+*   엔티티마다 LocalDateTime.now()를 호출하지 않고, 같은 flush로 저장되는 엔티티는 같은 시간을 가진다.
+*   flush가 끝나면 AuditClockFlushListener가 tick()을 호출해서 다음 flush는 새 시간을 사용한다.
+*   AuditingConfig가 DateTimeProvider 빈으로 등록한다. (컨텍스트마다 따로 만들어지므로 설정이 다른 컨텍스트에 영향을 주지 않는다)
+* */
+public class AuditClock implements DateTimeProvider {
+
+    private final boolean cached;
+
+    // false 이면 호출할 때마다 LocalDateTime.now() -> datajpa.auditing.cached 값
+    public AuditClock(boolean cached) {
+        this.cached = cached;
+    }
+
+    public LocalDateTime now() {
+        if (!cached || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return LocalDateTime.now();
+        }
+
+        // 시간은 트랜잭션마다 따로 가진다. (REQUIRES_NEW로 중단된 트랜잭션의 시간은 재개될 때 다시 사용한다)
+        Holder holder = TransactionScopedResources.get(this, Holder::new);
+        if (holder.now == null) {
+            holder.now = LocalDateTime.now();
+        }
+        return holder.now;
+    }
+
+    public void tick() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Holder holder = (Holder) TransactionSynchronizationManager.getResource(this);
+            if (holder != null) {
+                holder.now = null;
+            }
+        }
+    }
+
+    @Override
+    public Optional<TemporalAccessor> getNow() {
+        return Optional.of(now());
+    }
+
+    private static final class Holder {
+        private LocalDateTime now;
+    }
+}
@@ -0,0 +1,42 @@
+package study.datajpa.auditing;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+
+import javax.persistence.EntityManagerFactory;
+
+// flush가 끝나면 AuditClock의 시간을 버린다. -> 기본 flush 리스너 뒤에 등록되므로 flush 중의 @PreUpdate까지는 같은 시간을 사용한다.
+public class AuditClockFlushListener implements FlushEventListener, AutoFlushEventListener {
+
+    private final AuditClock auditClock;
+
+    private AuditClockFlushListener(AuditClock auditClock) {
+        this.auditClock = auditClock;
+    }
+
+    public static void register(EntityManagerFactory entityManagerFactory, AuditClock auditClock) {
+        AuditClockFlushListener listener = new AuditClockFlushListener(auditClock);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.FLUSH, listener);
+        registry.appendListeners(EventType.AUTO_FLUSH, listener);
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) {
+        auditClock.tick();
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) {
+        if (event.isFlushRequired()) {
+            auditClock.tick();
+        }
+    }
+}
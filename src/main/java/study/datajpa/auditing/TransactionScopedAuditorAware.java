@@ -0,0 +1,30 @@
+package study.datajpa.auditing;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+/*
+*   등록자/수정자를 트랜잭션마다 한번만 구한다.
+*   AuditingEntityListener는 엔티티를 저장/수정할 때마다 AuditorAware를 호출하므로,
+*   대량 저장할 때 SecurityContext 조회(예제에서는 UUID 생성)가 엔티티 수만큼 반복되는 것을 막는다.
+*   REQUIRES_NEW로 시작한 트랜잭션은 등록자를 새로 구한다.
+* */
+public class TransactionScopedAuditorAware<T> implements AuditorAware<T> {
+
+    private final AuditorAware<T> delegate;
+
+    public TransactionScopedAuditorAware(AuditorAware<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Optional<T> getCurrentAuditor() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return delegate.getCurrentAuditor();
+        }
+
+        return TransactionScopedResources.get(this, delegate::getCurrentAuditor);
+    }
+}
@@ -0,0 +1,45 @@
+package study.datajpa.auditing;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/*
+*   트랜잭션마다 하나씩 만들어서 쓰는 값
+*   REQUIRES_NEW 등으로 트랜잭션이 중단되면 같이 unbind 했다가 재개될 때 다시 bind 한다.
+*   -> 안쪽 트랜잭션은 바깥 트랜잭션의 값을 보지 않고, 안쪽 트랜잭션이 끝나도 바깥 트랜잭션의 값은 그대로 남는다.
+* */
+final class TransactionScopedResources {
+
+    private TransactionScopedResources() {
+    }
+
+    // 트랜잭션 동기화가 활성화된 상태에서만 호출해야 한다.
+    @SuppressWarnings("unchecked")
+    static <T> T get(Object key, Supplier<T> factory) {
+        T value = (T) TransactionSynchronizationManager.getResource(key);
+        if (value == null) {
+            T created = factory.get();
+            TransactionSynchronizationManager.bindResource(key, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(key, created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                }
+            });
+            value = created;
+        }
+        return value;
+    }
+}
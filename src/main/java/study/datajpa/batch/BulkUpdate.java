@@ -0,0 +1,60 @@
+package study.datajpa.batch;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+*   BulkUpdateExecutor로 실행할 벌크 수정 쿼리
+*   JPQL의 where 절에는 :chunkStart, :chunkEnd 로 PK 구간 조건을 넣어야 한다.
+*
+*   BulkUpdate.of("agePlus-20", Member.class,
+*           "update Member m set m.age = m.age + 1 where m.age >= :age and m.id between :chunkStart and :chunkEnd")
+*       .parameter("age", 20);
+* */
+@Getter
+public class BulkUpdate {
+
+    public static final String CHUNK_START = "chunkStart";
+    public static final String CHUNK_END = "chunkEnd";
+
+    // 같은 jobName으로 다시 실행하면 체크포인트가 남아있는 구간은 건너뛴다.
+    private final String jobName;
+    private final Class<?> entityType;
+    private final String jpql;
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private Integer chunkSize;
+
+    private BulkUpdate(String jobName, Class<?> entityType, String jpql) {
+        if (!jpql.contains(":" + CHUNK_START) || !jpql.contains(":" + CHUNK_END)) {
+            throw new IllegalArgumentException("벌크 수정 쿼리에는 :" + CHUNK_START + ", :" + CHUNK_END + " 조건이 필요합니다. jpql = " + jpql);
+        }
+        this.jobName = jobName;
+        this.entityType = entityType;
+        this.jpql = jpql;
+    }
+
+    public static BulkUpdate of(String jobName, Class<?> entityType, String jpql) {
+        return new BulkUpdate(jobName, entityType, jpql);
+    }
+
+    public BulkUpdate parameter(String name, Object value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    // 지정하지 않으면 datajpa.bulk.chunk-size
+    public BulkUpdate chunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize는 1 이상이어야 합니다. chunkSize = " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public Map<String, Object> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+}
@@ -0,0 +1,183 @@
+package study.datajpa.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.BulkUpdateCheckpoint;
+import study.datajpa.repository.BulkUpdateCheckpointRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+*   벌크 수정 쿼리(update ... where ...)를 PK 구간(chunk)으로 나눠서 구간마다 커밋한다.
+*   - 한 트랜잭션으로 전체 row를 수정하면 락을 오래 잡고 undo/redo 로그가 커지므로, chunk-size 만큼의 PK 구간씩 따로 커밋한다.
+*   - 구간은 parallelism 개의 스레드에서 동시에 실행한다. (커넥션 풀 크기보다 크게 잡으면 커넥션을 기다리기만 한다)
+*   - 구간 경계는 floor(id / chunk-size) * chunk-size 로 고정되어 있어서 최소/최대 PK가 바뀌어도 다시 실행할 때 경계가 같다.
+*   - 구간을 수정한 트랜잭션에서 체크포인트도 같이 저장하므로, 실패 후 같은 jobName으로 다시 실행하면 커밋된 구간은 건너뛴다.
+*     (체크포인트에 기록된 [chunkStart, chunkEnd] 밖의 나머지 구간만 실행하고, chunk-size가 다르면 실행하지 않는다)
+*     (m.age = m.age + 1 처럼 멱등하지 않은 수정도 구간마다 정확히 한번만 반영된다)
+*   - 하나라도 실패하면 아직 시작하지 않은 구간은 실행하지 않는다.
+*   - 끝나면 호출한 쪽의 영속성 컨텍스트를 비운다. (@Modifying(clearAutomatically = true)와 같은 이유)
+* */
+@Slf4j
+@Component
+public class BulkUpdateExecutor {
+
+    private final EntityManager em;
+    private final BulkUpdateCheckpointRepository checkpointRepository;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final int parallelism;
+
+    public BulkUpdateExecutor(EntityManager em,
+                              BulkUpdateCheckpointRepository checkpointRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${datajpa.bulk.chunk-size:1000}") int chunkSize,
+                              @Value("${datajpa.bulk.parallelism:4}") int parallelism) {
+        this.em = em;
+        this.checkpointRepository = checkpointRepository;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    public BulkUpdateResult execute(BulkUpdate update) {
+        long startTime = System.nanoTime();
+        int size = chunkSize(update);
+
+        List<IdRange> chunks = chunks(update.getEntityType(), size);
+        List<IdRange> completed = completedRanges(update.getJobName(), size);
+        List<IdRange> pending = new ArrayList<>();
+        int skippedChunks = 0;
+        for (IdRange chunk : chunks) {
+            List<IdRange> remaining = chunk.subtract(completed);
+            if (remaining.isEmpty()) {
+                skippedChunks++;
+            }
+            pending.addAll(remaining);
+        }
+
+        long updatedRows;
+        try {
+            updatedRows = run(update, pending);
+        } finally {
+            clearPersistenceContext();
+        }
+
+        BulkUpdateResult result = new BulkUpdateResult(update.getJobName(), chunks.size(),
+                skippedChunks, updatedRows, Duration.ofNanos(System.nanoTime() - startTime));
+        log.info("bulk update 완료. job = {}, chunks = {}, skipped = {}, rows = {}, elapsed = {}ms, rows/sec = {}",
+                result.getJobName(), result.getChunks(), result.getSkippedChunks(), result.getUpdatedRows(),
+                result.getElapsed().toMillis(), String.format("%.1f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    // 체크포인트를 지워서 다음 실행이 처음 구간부터 다시 수정하게 한다.
+    public int reset(String jobName) {
+        return checkpointRepository.deleteByJobName(jobName);
+    }
+
+    private long run(BulkUpdate update, List<IdRange> pending) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        int threads = Math.max(1, Math.min(parallelism, pending.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("bulk-"));
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (IdRange chunk : pending) {
+                futures.add(executor.submit(() -> {
+                    if (failed.get()) {
+                        return 0;
+                    }
+                    try {
+                        return chunkTransaction.execute(status -> executeChunk(update, chunk));
+                    } catch (RuntimeException | Error e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }));
+            }
+
+            long updatedRows = 0;
+            RuntimeException failure = null;
+            for (Future<Integer> future : futures) {
+                try {
+                    updatedRows += future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new IllegalStateException("bulk update 실패. 커밋된 구간은 같은 jobName으로 다시 실행하면 건너뜁니다. job = "
+                                + update.getJobName(), e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.set(true);
+                    throw new IllegalStateException("bulk update 대기 중 인터럽트. job = " + update.getJobName(), e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return updatedRows;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int executeChunk(BulkUpdate update, IdRange chunk) {
+        Query query = em.createQuery(update.getJpql())
+                .setParameter(BulkUpdate.CHUNK_START, chunk.start)
+                .setParameter(BulkUpdate.CHUNK_END, chunk.end);
+        update.getParameters().forEach(query::setParameter);
+        int updatedRows = query.executeUpdate();
+
+        checkpointRepository.save(new BulkUpdateCheckpoint(update.getJobName(), chunk.start, chunk.end, chunkSize(update), updatedRows));
+        return updatedRows;
+    }
+
+    private int chunkSize(BulkUpdate update) {
+        return update.getChunkSize() != null ? update.getChunkSize() : chunkSize;
+    }
+
+    private List<IdRange> chunks(Class<?> entityType, int size) {
+        IdRange range = IdRange.of(em, entityType);
+        return range != null ? range.alignedChunks(size) : new ArrayList<>();
+    }
+
+    // 체크포인트는 기록된 [chunkStart, chunkEnd]만 끝난 것으로 본다. (구간을 끝낸 뒤 최대 PK 위로 추가된 row는 다음 실행에서 수정한다)
+    private List<IdRange> completedRanges(String jobName, int size) {
+        List<IdRange> completed = new ArrayList<>();
+        for (BulkUpdateCheckpoint checkpoint : checkpointRepository.findByJobName(jobName)) {
+            if (checkpoint.getChunkSize() != size) {
+                throw new IllegalStateException("체크포인트와 chunkSize가 다릅니다. 같은 chunkSize로 실행하거나 reset 후 다시 실행해야 합니다. job = "
+                        + jobName + ", checkpoint chunkSize = " + checkpoint.getChunkSize() + ", chunkSize = " + size);
+            }
+            completed.add(new IdRange(checkpoint.getChunkStart(), checkpoint.getChunkEnd()));
+        }
+        return completed;
+    }
+
+    // 구간 수정은 다른 커넥션에서 커밋되므로, 호출한 트랜잭션의 영속성 컨텍스트에 남아있는 엔티티는 DB와 값이 다르다.
+    private void clearPersistenceContext() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.clear();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package study.datajpa.batch;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+@Getter
+@ToString
+public class BulkUpdateResult {
+
+    private final String jobName;
+    private final int chunks;
+    private final int skippedChunks;
+    private final long updatedRows;
+    private final Duration elapsed;
+
+    public BulkUpdateResult(String jobName, int chunks, int skippedChunks, long updatedRows, Duration elapsed) {
+        this.jobName = jobName;
+        this.chunks = chunks;
+        this.skippedChunks = skippedChunks;
+        this.updatedRows = updatedRows;
+        this.elapsed = elapsed;
+    }
+
+    public double getRowsPerSecond() {
+        long millis = Math.max(elapsed.toMillis(), 1);
+        return updatedRows * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,98 @@
+package study.datajpa.batch;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Long 타입 PK의 [start, end] 구간 -> BulkUpdateExecutor, PartitionedScanner가 테이블을 PK 구간으로 나눌 때 사용한다.
+final class IdRange {
+
+    final long start;
+    final long end;
+
+    IdRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    static String idAttribute(EntityManager em, Class<?> entityType) {
+        EntityType<?> entity = em.getMetamodel().entity(entityType);
+        Class<?> idType = entity.getIdType().getJavaType();
+        if (idType != Long.class && idType != long.class) {
+            throw new IllegalArgumentException("PK 구간으로 나누려면 Long 타입 PK가 필요합니다. entity = " + entity.getName());
+        }
+        return entity.getId(idType).getName();
+    }
+
+    // 테이블의 최소 ~ 최대 PK, 테이블이 비어있으면 null
+    static IdRange of(EntityManager em, Class<?> entityType) {
+        String idName = idAttribute(em, entityType);
+        String entityName = em.getMetamodel().entity(entityType).getName();
+        Object[] range = (Object[]) em.createQuery(
+                        "select min(e." + idName + "), max(e." + idName + ") from " + entityName + " e")
+                .getSingleResult();
+        return range[0] == null ? null : new IdRange((Long) range[0], (Long) range[1]);
+    }
+
+    // size 단위로 자른다. (PK가 비어있는 구간은 처리할 row가 없으므로 금방 끝난다)
+    List<IdRange> splitBySize(long size) {
+        List<IdRange> ranges = new ArrayList<>();
+        for (long from = start; from <= end; from += size) {
+            ranges.add(new IdRange(from, Math.min(from + size - 1, end)));
+            if (from > Long.MAX_VALUE - size) {
+                break;
+            }
+        }
+        return ranges;
+    }
+
+    // 최소 PK와 상관없이 floor(id / size) * size 경계로 자른다. -> 가장 작은 row가 지워지거나 새 row가 추가돼도 구간 경계가 바뀌지 않는다.
+    List<IdRange> alignedChunks(long size) {
+        List<IdRange> chunks = new ArrayList<>();
+        long from = Math.floorDiv(start, size) * size;
+        while (true) {
+            long to = from > Long.MAX_VALUE - size + 1 ? Long.MAX_VALUE : from + size - 1;
+            chunks.add(new IdRange(from, Math.min(to, end)));
+            if (to >= end) {
+                return chunks;
+            }
+            from = to + 1;
+        }
+    }
+
+    // covered(시작 PK 순으로 정렬)에 포함되지 않는 나머지 구간
+    List<IdRange> subtract(List<IdRange> covered) {
+        List<IdRange> remaining = new ArrayList<>();
+        long from = start;
+        for (IdRange range : covered) {
+            if (range.end < from || range.start > end) {
+                continue;
+            }
+            if (range.start > from) {
+                remaining.add(new IdRange(from, range.start - 1));
+            }
+            if (range.end >= end) {
+                return remaining;
+            }
+            from = range.end + 1;
+        }
+        remaining.add(new IdRange(from, end));
+        return remaining;
+    }
+
+    // count 개의 비슷한 크기로 자른다.
+    List<IdRange> splitInto(int count) {
+        long length = end - start + 1;
+        if (length <= 0) {
+            return Collections.singletonList(this);
+        }
+        return splitBySize(Math.max(1, (length + count - 1) / count));
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + "]";
+    }
+}
@@ -0,0 +1,48 @@
+package study.datajpa.batch;
+
+import lombok.Getter;
+
+/*
+*   PartitionedScanner로 읽을 엔티티와 나누는 방법
+*
+*   PartitionedScan.of(Member.class).partitions(32).pageSize(500).readOnly();
+* */
+@Getter
+public class PartitionedScan<T> {
+
+    private final Class<T> entityType;
+    // 지정하지 않으면 datajpa.scan.* 설정을 따른다.
+    private Integer partitions;
+    private Integer pageSize;
+    // 엔티티를 수정하지 않는 작업이면 true -> dirty checking 없이 읽고, replica가 있으면 replica에서 읽는다.
+    private boolean readOnly;
+
+    private PartitionedScan(Class<T> entityType) {
+        this.entityType = entityType;
+    }
+
+    public static <T> PartitionedScan<T> of(Class<T> entityType) {
+        return new PartitionedScan<>(entityType);
+    }
+
+    public PartitionedScan<T> partitions(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions는 1 이상이어야 합니다. partitions = " + partitions);
+        }
+        this.partitions = partitions;
+        return this;
+    }
+
+    public PartitionedScan<T> pageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize는 1 이상이어야 합니다. pageSize = " + pageSize);
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    public PartitionedScan<T> readOnly() {
+        this.readOnly = true;
+        return this;
+    }
+}
@@ -0,0 +1,53 @@
+package study.datajpa.batch;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@ToString
+public class PartitionedScanResult<R> {
+
+    private final R result;
+    private final List<PartitionStats> partitions;
+    private final Duration elapsed;
+
+    public PartitionedScanResult(R result, List<PartitionStats> partitions, Duration elapsed) {
+        this.result = result;
+        this.partitions = partitions;
+        this.elapsed = elapsed;
+    }
+
+    public long getEntities() {
+        return partitions.stream().mapToLong(PartitionStats::getEntities).sum();
+    }
+
+    public double getEntitiesPerSecond() {
+        long millis = Math.max(elapsed.toMillis(), 1);
+        return getEntities() * 1000.0 / millis;
+    }
+
+    // 파티션 하나를 처리한 결과 -> 한 파티션만 오래 걸리면 PK 분포가 고르지 않은 것이므로 partitions를 늘린다.
+    @Getter
+    @ToString
+    public static class PartitionStats {
+
+        private final long startId;
+        private final long endId;
+        private final long entities;
+        private final int pages;
+        private final Duration elapsed;
+        private final String thread;
+
+        public PartitionStats(long startId, long endId, long entities, int pages, Duration elapsed, String thread) {
+            this.startId = startId;
+            this.endId = endId;
+            this.entities = entities;
+            this.pages = pages;
+            this.elapsed = elapsed;
+            this.thread = thread;
+        }
+    }
+}
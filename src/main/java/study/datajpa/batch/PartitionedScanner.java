@@ -0,0 +1,216 @@
+package study.datajpa.batch;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+
+/*
+*   테이블 전체를 PK 구간(파티션)으로 나눠서 여러 스레드가 동시에 읽는다. (findAll()을 한 스레드, 한 EntityManager로 읽는 대신)
+*   - 파티션마다 별도 트랜잭션(= 별도 EntityManager, 커넥션)으로 읽고, page-size 건마다 flush, clear 해서 영속성 컨텍스트가 커지지 않는다.
+*   - 파티션 안에서는 PK 순서로 키셋 페이징(id > 마지막 id)을 하므로 offset 없이 인덱스만 타고 읽는다.
+*   - 결과는 Collector로 모은다. 파티션마다 accumulator를 따로 만들고, 끝나면 파티션 순서대로 합친다. (동기화가 필요 없다)
+*   - 엔티티를 수정하면 파티션 트랜잭션이 커밋될 때 반영된다. 읽기만 하면 PartitionedScan.readOnly()를 사용한다.
+*   파티션을 스레드 수보다 많이 나눠야 PK 분포가 고르지 않아도 먼저 끝난 스레드가 남은 파티션을 가져간다.
+*   DB가 먼저 포화되면 스레드를 늘려도 처리량이 늘지 않는다. 스레드마다 커넥션을 하나씩 사용하므로 parallelism은 커넥션 풀(HikariCP) 크기 이하여야 한다.
+*   (지정하지 않으면 min(코어 수, 풀 크기), 풀 크기보다 크게 지정하면 시작할 때 실패한다)
+* */
+@Slf4j
+@Component
+public class PartitionedScanner {
+
+    private final EntityManager em;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int parallelism;
+    private final int partitionsPerThread;
+    private final int pageSize;
+
+    public PartitionedScanner(EntityManager em,
+                              PlatformTransactionManager transactionManager,
+                              DataSource dataSource,
+                              @Value("${datajpa.scan.parallelism:0}") int parallelism,
+                              @Value("${datajpa.scan.partitions-per-thread:4}") int partitionsPerThread,
+                              @Value("${datajpa.scan.page-size:500}") int pageSize) {
+        this.em = em;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.parallelism = parallelism(parallelism, maximumPoolSize(dataSource));
+        this.partitionsPerThread = Math.max(1, partitionsPerThread);
+        this.pageSize = pageSize;
+    }
+
+    // 0이면 코어 수만큼, 풀 크기를 알 수 없으면(HikariCP가 아니면) 제한하지 않는다.
+    private static int parallelism(int configured, int poolSize) {
+        if (configured <= 0) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            return poolSize > 0 ? Math.min(cores, poolSize) : cores;
+        }
+        if (poolSize > 0 && configured > poolSize) {
+            throw new IllegalArgumentException("datajpa.scan.parallelism은 커넥션 풀 크기 이하여야 합니다. parallelism = "
+                    + configured + ", maximumPoolSize = " + poolSize);
+        }
+        return configured;
+    }
+
+    // 라우팅/통계 DataSource로 감싸져 있어도 unwrap으로 커넥션 풀을 찾는다. 찾지 못하면 0
+    private static int maximumPoolSize(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                    : 0;
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+
+    public <T, R> PartitionedScanResult<R> scan(PartitionedScan<T> scan, Collector<? super T, ?, R> collector) {
+        return scanWith(scan, collector);
+    }
+
+    private <T, A, R> PartitionedScanResult<R> scanWith(PartitionedScan<T> scan, Collector<? super T, A, R> collector) {
+        long startTime = System.nanoTime();
+        int partitionCount = scan.getPartitions() != null ? scan.getPartitions() : parallelism * partitionsPerThread;
+
+        IdRange range = IdRange.of(em, scan.getEntityType());
+        List<IdRange> partitions = range != null ? range.splitInto(partitionCount) : Collections.emptyList();
+
+        List<Partition<A>> results = run(scan, collector, partitions);
+
+        A accumulated = collector.supplier().get();
+        List<PartitionedScanResult.PartitionStats> stats = new ArrayList<>();
+        for (Partition<A> partition : results) {
+            accumulated = collector.combiner().apply(accumulated, partition.container);
+            stats.add(partition.stats);
+        }
+
+        PartitionedScanResult<R> result = new PartitionedScanResult<>(collector.finisher().apply(accumulated),
+                stats, Duration.ofNanos(System.nanoTime() - startTime));
+        log.info("partitioned scan 완료. entity = {}, partitions = {}, entities = {}, elapsed = {}ms, entities/sec = {}, slowest partition = {}ms",
+                scan.getEntityType().getSimpleName(), stats.size(), result.getEntities(), result.getElapsed().toMillis(),
+                String.format("%.1f", result.getEntitiesPerSecond()),
+                stats.stream().mapToLong(partition -> partition.getElapsed().toMillis()).max().orElse(0));
+        return result;
+    }
+
+    private <T, A> List<Partition<A>> run(PartitionedScan<T> scan, Collector<? super T, A, ?> collector,
+                                          List<IdRange> partitions) {
+        if (partitions.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int threads = Math.min(parallelism, partitions.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("scan-"));
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            List<Future<Partition<A>>> futures = new ArrayList<>();
+            for (IdRange partition : partitions) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        return scanPartition(scan, collector, partition, failed);
+                    } catch (RuntimeException | Error e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }));
+            }
+
+            List<Partition<A>> results = new ArrayList<>();
+            for (Future<Partition<A>> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            failed.set(true);
+            throw new IllegalStateException("partitioned scan 실패. entity = " + scan.getEntityType().getSimpleName(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.set(true);
+            throw new IllegalStateException("partitioned scan 대기 중 인터럽트. entity = " + scan.getEntityType().getSimpleName(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T, A> Partition<A> scanPartition(PartitionedScan<T> scan, Collector<? super T, A, ?> collector,
+                                              IdRange partition, AtomicBoolean failed) {
+        long startTime = System.nanoTime();
+        Class<T> entityType = scan.getEntityType();
+        int size = scan.getPageSize() != null ? scan.getPageSize() : pageSize;
+        String idName = IdRange.idAttribute(em, entityType);
+        String jpql = "select e from " + em.getMetamodel().entity(entityType).getName() + " e" +
+                " where e." + idName + " between :from and :to order by e." + idName;
+        PersistenceUnitUtil persistenceUnitUtil = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        BiConsumer<A, ? super T> accumulator = collector.accumulator();
+        A container = collector.supplier().get();
+
+        TransactionTemplate template = scan.isReadOnly() ? readOnlyTransaction : transaction;
+        long[] counts = template.execute(status -> {
+            long entities = 0;
+            int pages = 0;
+            long from = partition.start;
+            while (!failed.get()) {
+                List<T> page = em.createQuery(jpql, entityType)
+                        .setParameter("from", from)
+                        .setParameter("to", partition.end)
+                        .setMaxResults(size)
+                        .getResultList();
+                if (page.isEmpty()) {
+                    break;
+                }
+                page.forEach(entity -> accumulator.accept(container, entity));
+                entities += page.size();
+                pages++;
+
+                long lastId = (Long) persistenceUnitUtil.getIdentifier(page.get(page.size() - 1));
+                if (!scan.isReadOnly()) {
+                    em.flush();
+                }
+                em.clear();
+                if (page.size() < size || lastId >= partition.end) {
+                    break;
+                }
+                from = lastId + 1;
+            }
+            return new long[]{entities, pages};
+        });
+
+        PartitionedScanResult.PartitionStats stats = new PartitionedScanResult.PartitionStats(partition.start, partition.end,
+                counts[0], (int) counts[1], Duration.ofNanos(System.nanoTime() - startTime), Thread.currentThread().getName());
+        log.debug("partition {} 완료. {}", partition, stats);
+        return new Partition<>(container, stats);
+    }
+
+    private static final class Partition<A> {
+        private final A container;
+        private final PartitionedScanResult.PartitionStats stats;
+
+        private Partition(A container, PartitionedScanResult.PartitionStats stats) {
+            this.container = container;
+            this.stats = stats;
+        }
+    }
+}
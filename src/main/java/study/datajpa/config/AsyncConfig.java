@@ -0,0 +1,89 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   @Async 리포지토리 메서드(CompletableFuture 반환)를 실행하는 repositoryExecutor 설정
+*   - 동시에 DB를 사용하는 작업 수는 pool-size로 제한하고, 넘치면 queue-capacity 만큼 대기하다가 TaskRejectedException이 발생한다.
+*   - 실행 시간, 대기열 크기 등은 /actuator/metrics/executor.* (name=repository) 로 확인한다.
+*   datajpa.async.virtual-threads=true 이고 JDK 21 이상이면 Tomcat 요청 처리, MVC 비동기 처리, repositoryExecutor가 가상 스레드를 사용한다.
+* */
+@Slf4j
+@EnableAsync
+@Configuration
+public class AsyncConfig {
+
+    public static final String REPOSITORY_EXECUTOR = "repositoryExecutor";
+
+    @Value("${datajpa.async.pool-size:10}")
+    private int poolSize;
+
+    @Value("${datajpa.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${datajpa.async.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    // 가상 스레드도 풀을 쓰지 않고 작업마다 만들지만, 플랫폼 스레드와 같이 동시에 실행하는 작업은 pool-size개, 대기는 queue-capacity개로 제한한다.
+    // (제한하지 않으면 넘치는 작업이 전부 커넥션을 기다리다가 connection-timeout 예외로 끝난다)
+    @Bean(name = REPOSITORY_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService repositoryExecutor(ObjectProvider<MeterRegistry> meterRegistry) {
+        ExecutorService executor = useVirtualThreads()
+                ? new BoundedExecutorService(VirtualThreads.newThreadPerTaskExecutor("repository-"), poolSize, queueCapacity)
+                : new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("repository-"));
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        return registry != null ? ExecutorServiceMetrics.monitor(registry, executor, "repository") : executor;
+    }
+
+    // ExecutorService 빈을 등록하면 스프링 부트가 기본 TaskExecutor를 만들지 않으므로 직접 등록한다. (StreamingResponseBody 등 MVC 비동기 처리에 사용)
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        if (useVirtualThreads()) {
+            return new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("task-"));
+        }
+        return builder.build();
+    }
+
+    // 요청마다 가상 스레드를 만든다 -> DB 응답이 느려져도 Tomcat 스레드(max-threads)가 먼저 고갈되지 않는다.
+    @Bean
+    @ConditionalOnProperty(name = "datajpa.async.virtual-threads", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (useVirtualThreads()) {
+                protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("http-"));
+            }
+        };
+    }
+
+    private boolean useVirtualThreads() {
+        if (virtualThreads && !VirtualThreads.isSupported()) {
+            log.warn("JDK 21 미만에서는 가상 스레드를 사용할 수 없어서 플랫폼 스레드를 사용합니다. java.version = {}",
+                    System.getProperty("java.version"));
+            virtualThreads = false;
+        }
+        return virtualThreads;
+    }
+}
@@ -0,0 +1,37 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.auditing.AuditClock;
+import study.datajpa.auditing.AuditClockFlushListener;
+
+import javax.persistence.EntityManagerFactory;
+
+/*
+*   datajpa.auditing.cached=true  -> 등록자/수정자는 트랜잭션마다 한번, 등록일/수정일은 flush 마다 한번만 구한다.
+*   datajpa.auditing.cached=false -> 엔티티를 저장/수정할 때마다 구한다. (Spring Data 기본 동작)
+* */
+@Configuration
+public class AuditingConfig {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean cached;
+
+    public AuditingConfig(EntityManagerFactory entityManagerFactory,
+                          @Value("${datajpa.auditing.cached:true}") boolean cached) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.cached = cached;
+    }
+
+    // @EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+    // 엔티티 감사와 JDBC/벌크 연산(ItemRepositoryImpl, MemberRepositoryImpl)이 같은 시간을 쓰도록 AuditClock 타입으로 등록한다.
+    @Bean
+    public AuditClock auditingDateTimeProvider() {
+        AuditClock auditClock = new AuditClock(cached);
+        if (cached) {
+            AuditClockFlushListener.register(entityManagerFactory, auditClock);
+        }
+        return auditClock;
+    }
+}
@@ -0,0 +1,79 @@
+package study.datajpa.config;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   작업마다 스레드를 만드는 ExecutorService(가상 스레드)에 ThreadPoolExecutor와 같은 제한을 건다.
+*   - 동시에 실행하는 작업은 maxConcurrency개, 나머지는 스레드에서 차례를 기다린다. (가상 스레드는 기다리는 비용이 작다)
+*   - 실행 중 + 대기 중인 작업이 maxConcurrency + queueCapacity개를 넘으면 RejectedExecutionException -> 커넥션 타임아웃까지 기다리지 않고 바로 거절한다.
+* */
+final class BoundedExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Semaphore running;
+    private final Semaphore admitted;
+    private final int capacity;
+
+    BoundedExecutorService(ExecutorService delegate, int maxConcurrency, int queueCapacity) {
+        this.delegate = delegate;
+        this.running = new Semaphore(maxConcurrency);
+        this.capacity = maxConcurrency + queueCapacity;
+        this.admitted = new Semaphore(capacity);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            throw new RejectedExecutionException("실행 중인 작업과 대기 중인 작업이 " + capacity + "개를 넘었습니다.");
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    running.acquire();
+                    try {
+                        task.run();
+                    } finally {
+                        running.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    admitted.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
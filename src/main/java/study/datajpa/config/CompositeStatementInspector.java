@@ -0,0 +1,24 @@
+package study.datajpa.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+
+public class CompositeStatementInspector implements StatementInspector {
+
+    private final StatementInspector[] inspectors;
+
+    public CompositeStatementInspector(List<StatementInspector> inspectors) {
+        this.inspectors = inspectors.toArray(new StatementInspector[0]);
+    }
+
+    // 앞의 인스펙터가 SQL을 바꾸면 바뀐 SQL이 다음 인스펙터로 전달된다.
+    @Override
+    public String inspect(String sql) {
+        String inspected = sql;
+        for (StatementInspector inspector : inspectors) {
+            inspected = inspector.inspect(inspected);
+        }
+        return inspected;
+    }
+}
@@ -0,0 +1,88 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.jpa.repository.query.JpaQueryMethodFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.querydsl.EntityPathResolver;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.lang.Nullable;
+import study.datajpa.monitoring.RepositoryMetrics;
+
+import javax.persistence.EntityManager;
+
+/*
+*   이 프로젝트의 리포지토리 팩토리 빈 (ProjectionConfig의 @EnableJpaRepositories에서 지정)
+*   - Spring Data가 쿼리 메서드 결과를 프로젝션으로 만들 때 사용하는 ProjectionFactory를 스프링 빈으로 바꿔준다.
+*   - 리포지토리 프록시에 메서드별 메트릭을 기록하는 인터셉터를 추가한다. (RepositoryMetrics)
+*   JpaRepositoryFactoryBean이 팩토리에 넘겨주는 설정값은 private 이라서 setter를 오버라이드해서 같이 보관한다.
+* */
+public class DataJpaRepositoryFactoryBean<T extends Repository<S, ID>, S, ID> extends JpaRepositoryFactoryBean<T, S, ID> {
+
+    private ProjectionFactory projectionFactory;
+    private RepositoryMetrics repositoryMetrics;
+    private EntityPathResolver entityPathResolver = SimpleEntityPathResolver.INSTANCE;
+    private JpaQueryMethodFactory queryMethodFactory;
+    private char escapeCharacter = '\\';
+
+    public DataJpaRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+        super(repositoryInterface);
+    }
+
+    @Autowired
+    public void setProjectionFactory(ProjectionFactory projectionFactory) {
+        this.projectionFactory = projectionFactory;
+    }
+
+    @Autowired(required = false)
+    public void setRepositoryMetrics(RepositoryMetrics repositoryMetrics) {
+        this.repositoryMetrics = repositoryMetrics;
+    }
+
+    @Override
+    @Autowired
+    public void setEntityPathResolver(ObjectProvider<EntityPathResolver> resolver) {
+        super.setEntityPathResolver(resolver);
+        this.entityPathResolver = resolver.getIfAvailable(() -> SimpleEntityPathResolver.INSTANCE);
+    }
+
+    @Override
+    @Autowired
+    public void setQueryMethodFactory(@Nullable JpaQueryMethodFactory factory) {
+        super.setQueryMethodFactory(factory);
+        this.queryMethodFactory = factory;
+    }
+
+    @Override
+    public void setEscapeCharacter(char escapeCharacter) {
+        super.setEscapeCharacter(escapeCharacter);
+        this.escapeCharacter = escapeCharacter;
+    }
+
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
+        JpaRepositoryFactory factory = new JpaRepositoryFactory(entityManager) {
+            @Override
+            protected ProjectionFactory getProjectionFactory(ClassLoader classLoader, BeanFactory beanFactory) {
+                return projectionFactory != null ? projectionFactory : super.getProjectionFactory(classLoader, beanFactory);
+            }
+        };
+        factory.setEntityPathResolver(entityPathResolver);
+        factory.setEscapeCharacter(EscapeCharacter.of(escapeCharacter));
+        if (queryMethodFactory != null) {
+            factory.setQueryMethodFactory(queryMethodFactory);
+        }
+        // 트랜잭션 인터셉터보다 먼저 추가되므로 실행 시간에 트랜잭션 시작/커밋(flush)까지 포함된다.
+        if (repositoryMetrics != null && repositoryMetrics.isEnabled()) {
+            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                    proxyFactory.addAdvice(repositoryMetrics.interceptor(repositoryInformation.getRepositoryInterface())));
+        }
+        return factory;
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.id.PooledLoSequenceGenerator;
+import study.datajpa.repository.CountQueryCache;
+
+import java.util.List;
+
+@Configuration
+public class HibernateConfig {
+
+    @Bean
+    public TableWriteInspector tableWriteInspector(CountQueryCache countQueryCache) {
+        return new TableWriteInspector(countQueryCache);
+    }
+
+    // StatementInspector는 클래스 이름 대신 인스턴스를 넘겨줄 수 있어서 스프링 빈을 주입받아 사용할 수 있다.
+    // Hibernate에는 하나만 등록할 수 있으므로 StatementInspector 빈들을 순서대로 호출하는 인스펙터로 묶어서 등록한다.
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(List<StatementInspector> inspectors) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new CompositeStatementInspector(inspectors));
+    }
+
+    // PooledLoSequenceGenerator는 Hibernate 설정에서 allocation-size를 읽는다.
+    @Bean
+    public HibernatePropertiesCustomizer idAllocationSizeCustomizer(
+            @Value("${datajpa.id.allocation-size:" + PooledLoSequenceGenerator.DEFAULT_ALLOCATION_SIZE + "}") int allocationSize) {
+        return properties -> properties.put(PooledLoSequenceGenerator.ALLOCATION_SIZE, allocationSize);
+    }
+}
@@ -0,0 +1,26 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import study.datajpa.projection.CompiledProjectionFactory;
+
+/*
+*   인터페이스 프로젝션 구현 방식 설정
+*   datajpa.projection.compiled=true  -> 프로젝션마다 클래스를 만들어서 사용 (CompiledProjectionFactory)
+*   datajpa.projection.compiled=false -> Spring Data 기본 방식 (JDK 프록시 + getter 호출마다 SpEL 평가), 기본값
+*   compiled 모드는 프로젝션을 만들 때 모든 getter를 평가하므로 지연 로딩 시점이 달라져서 명시적으로 켤 때만 사용한다.
+* */
+@Configuration
+@EnableJpaRepositories(basePackages = "study.datajpa.repository",
+        repositoryFactoryBeanClass = DataJpaRepositoryFactoryBean.class)
+public class ProjectionConfig {
+
+    @Bean
+    public ProjectionFactory projectionFactory(@Value("${datajpa.projection.compiled:false}") boolean compiled) {
+        return compiled ? new CompiledProjectionFactory() : new SpelAwareProxyProjectionFactory();
+    }
+}
@@ -0,0 +1,74 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import study.datajpa.datasource.ReadYourWritesFilter;
+import study.datajpa.datasource.ReplicationRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/*
+*   datajpa.datasource.replica.url 을 설정하면 읽기 전용 트랜잭션은 replica, 쓰기는 primary(spring.datasource)를 사용한다.
+*   Spring Data JPA의 조회 메서드(findAll, findById, 쿼리 메서드)는 기본이 @Transactional(readOnly = true) 이다.
+*   primary/replica 커넥션 풀도 빈으로 등록해서 hikaricp.* 메트릭이 풀마다 나오게 하고, 주입은 @Primary인 라우팅 DataSource가 받는다.
+* */
+@Configuration
+@ConditionalOnProperty(name = "datajpa.datasource.replica.url")
+public class ReplicationDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("datajpa.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${datajpa.datasource.replica.url}") String url,
+                                              @Value("${datajpa.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${datajpa.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 @Value("${datajpa.datasource.replica.max-lag:1s}") Duration maxLag) {
+        ReplicationRoutingDataSource routingDataSource = new ReplicationRoutingDataSource(primaryDataSource, replicaDataSource, maxLag);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    // OSIV 처럼 하나의 EntityManager로 여러 트랜잭션을 실행해도 트랜잭션마다 커넥션을 반납해야 트랜잭션마다 다시 라우팅된다.
+    @Bean
+    public HibernatePropertiesCustomizer connectionHandlingCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter() {
+        return new ReadYourWritesFilter();
+    }
+}
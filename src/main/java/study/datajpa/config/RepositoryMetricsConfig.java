@@ -0,0 +1,32 @@
+package study.datajpa.config;
+
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.monitoring.EntityLoadCountingListener;
+import study.datajpa.monitoring.RepositoryMetrics;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/*
+*   리포지토리 메서드별 메트릭 설정 (RepositoryMetrics)
+*   datajpa.repository-metrics.enabled=false 이면 리포지토리 프록시에 인터셉터를 추가하지 않는다.
+* */
+@Configuration
+public class RepositoryMetricsConfig {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final RepositoryMetrics repositoryMetrics;
+
+    public RepositoryMetricsConfig(EntityManagerFactory entityManagerFactory, RepositoryMetrics repositoryMetrics) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.repositoryMetrics = repositoryMetrics;
+    }
+
+    // 로딩된 엔티티 수(repository.entities)를 세기 위해 PostLoad 리스너를 등록한다.
+    @PostConstruct
+    public void init() {
+        if (repositoryMetrics.isEnabled()) {
+            EntityLoadCountingListener.register(entityManagerFactory);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package study.datajpa.config;
+
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+*   Hibernate 2차 캐시(JCache + Ehcache) 설정
+*   영역(region) 이름은 엔티티는 클래스 이름, 컬렉션은 "클래스 이름.필드 이름"이다.
+*   @Modifying 벌크 JPQL은 엔티티 이벤트가 발생하지 않지만, Hibernate가 쿼리 대상 엔티티의 영역과
+*   그 엔티티를 담고있는 컬렉션 영역(Team.members)을 통째로 비워준다.
+* */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Value("${datajpa.second-level-cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${datajpa.second-level-cache.ttl:10m}")
+    private Duration ttl;
+
+    // 컨텍스트마다 별도의 CacheManager를 사용해야 테스트에서 여러 컨텍스트가 떠도 캐시가 섞이지 않는다.
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        Map<String, CacheConfiguration<?, ?>> caches = new HashMap<>();
+        caches.put(Team.class.getName(), regionConfiguration());
+        caches.put(Team.class.getName() + ".members", regionConfiguration());
+        caches.put(Member.class.getName(), regionConfiguration());
+
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        URI uri = URI.create("urn:datajpa:second-level-cache:" + System.identityHashCode(this));
+        return provider.getCacheManager(uri, new DefaultConfiguration(caches, provider.getDefaultClassLoader()));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    private CacheConfiguration<Object, Object> regionConfiguration() {
+        return CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                        ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl))
+                .build();
+    }
+}
@@ -0,0 +1,38 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.monitoring.SlowQueryExplainer;
+import study.datajpa.monitoring.SqlStatistics;
+import study.datajpa.monitoring.SqlStatisticsDataSource;
+
+import javax.sql.DataSource;
+
+/*
+*   JPA, JdbcTemplate이 사용하는 dataSource 빈을 감싸서 모든 SQL을 SqlStatistics에 기록한다.
+*   replica를 사용하면 dataSource는 라우팅 DataSource이므로 primary, replica 커넥션 풀을 각각 감싸지 않아도 한번씩만 기록된다.
+* */
+@Configuration
+@ConditionalOnProperty(name = "datajpa.sql.statistics.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatisticsConfig {
+
+    private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    // BeanPostProcessor는 다른 빈보다 먼저 만들어지므로 static으로 등록하고 SqlStatistics는 나중에 꺼낸다.
+    @Bean
+    public static BeanPostProcessor sqlStatisticsDataSourcePostProcessor(ObjectProvider<SqlStatistics> sqlStatistics,
+                                                                         ObjectProvider<SlowQueryExplainer> slowQueryExplainer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE_BEAN_NAME.equals(beanName) && bean instanceof DataSource) {
+                    return SqlStatisticsDataSource.wrap((DataSource) bean, sqlStatistics.getObject(), slowQueryExplainer.getIfAvailable());
+                }
+                return bean;
+            }
+        };
+    }
+}
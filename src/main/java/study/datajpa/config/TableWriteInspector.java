@@ -0,0 +1,71 @@
+package study.datajpa.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.repository.CountQueryCache;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+*   Hibernate가 실행하는 모든 SQL을 보고, 쓰기 SQL이면 대상 테이블의 카운트 캐시를 무효화한다.
+*   save()처럼 엔티티 이벤트가 발생하는 경우뿐 아니라 @Modifying 벌크 쿼리나 네이티브 쿼리도 SQL은 반드시 여기를 거친다.
+* */
+public class TableWriteInspector implements StatementInspector {
+
+    private static final Pattern WRITE_STATEMENT = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)*(?:insert\\s+into|update|delete\\s+from|delete|merge\\s+into|truncate\\s+table)\\s+([\\w.\"]+)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final CountQueryCache countQueryCache;
+
+    public TableWriteInspector(CountQueryCache countQueryCache) {
+        this.countQueryCache = countQueryCache;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Matcher matcher = WRITE_STATEMENT.matcher(sql);
+        if (matcher.find()) {
+            onWrite(tableName(matcher.group(1)));
+        }
+        return sql;
+    }
+
+    private void onWrite(String table) {
+        countQueryCache.invalidate(table);
+
+        // 커밋 전에 다른 트랜잭션이 이전 값으로 캐시를 다시 채울 수 있으므로 트랜잭션이 끝난 뒤에도 한번 더 무효화한다.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            writtenTables().add(table);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> writtenTables() {
+        Set<String> tables = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (tables == null) {
+            Set<String> newTables = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, newTables);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TableWriteInspector.this);
+                    newTables.forEach(countQueryCache::invalidate);
+                }
+            });
+            tables = newTables;
+        }
+        return tables;
+    }
+
+    private static String tableName(String qualifiedName) {
+        String name = qualifiedName.replace("\"", "");
+        int dot = name.lastIndexOf('.');
+        return (dot >= 0 ? name.substring(dot + 1) : name).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,65 @@
+package study.datajpa.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+*   가상 스레드(JDK 21) 지원
+*   빌드는 Java 11로 하기 때문에 Thread.ofVirtual()을 직접 호출할 수 없어서 리플렉션으로 한번만 찾아둔다.
+*   JDK 21 미만에서 실행하면 isSupported()가 false 이다.
+* */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Class<?> BUILDER = findClass("java.lang.Thread$Builder");
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null && BUILDER != null;
+    }
+
+    // Thread.ofVirtual().name(prefix, 0).factory()
+    public static ThreadFactory threadFactory(String prefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("가상 스레드는 JDK 21 이상에서 사용할 수 있습니다. java.version = " + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) BUILDER.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Executors.newThreadPerTaskExecutor(threadFactory) -> 작업마다 새 가상 스레드를 만든다. (가상 스레드는 풀링하지 않는다)
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        ThreadFactory threadFactory = threadFactory(prefix);
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Class<?> findClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
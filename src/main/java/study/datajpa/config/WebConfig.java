@@ -0,0 +1,30 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.datajpa.entity.Member;
+import study.datajpa.loader.MemberLoader;
+import study.datajpa.monitoring.StatementCountingInterceptor;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final StatementCountingInterceptor statementCountingInterceptor;
+    private final MemberLoader memberLoader;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(statementCountingInterceptor);
+    }
+
+    // 도메인 클래스 컨버터는 Object -> Object로 등록되므로 String -> Member 컨버터가 먼저 선택된다. (없는 id는 도메인 클래스 컨버터처럼 null)
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, Member.class,
+                source -> source.isBlank() ? null : memberLoader.findById(Long.valueOf(source.trim())).orElse(null));
+    }
+}
@@ -1,39 +1,154 @@
 package study.datajpa.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.InvalidCursorException;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.loader.MemberLoader;
 import study.datajpa.repository.MemberRepository;
 import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
     private final MemberRepository memberRepository;
+    private final MemberLoader memberLoader;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final StreamingPageWriter pageWriter;
 
+    @Value("${spring.data.web.pageable.max-page-size:2000}")
+    private int maxPageSize;
+
+    // 같은 시점에 들어온 조회는 MemberLoader가 DB 조회 하나로 묶는다.
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id) {
-        Member member = memberRepository.findById(id).get();
+        Member member = memberLoader.findById(id).get();
         return member.getUsername();
     }
 
     // Web 확장 기능인 도메인 클래스 컨버터 사용 -> 도메인 클래스 컨버터를 사용하면 트랜잭션이 없는 범위에서 조회 했으므로 단순조회용이다.
+    // String -> Member 변환은 WebConfig에 등록한 컨버터가 도메인 클래스 컨버터보다 먼저 선택되어 MemberLoader로 조회한다.
     @GetMapping("/members2/{id}")
     public String findMember2(@PathVariable("id") Member member) {
         return member.getUsername();
     }
 
-    @GetMapping("/members")
-    public Page<MemberDto> list(@PageableDefault(size = 5) Pageable pageable) {
-        return memberRepository.findAll(pageable)
+    // Page<MemberDto>(PageImpl)를 만들지 않고 DB에서 읽은 DTO를 바로 응답에 쓴다. 응답 형식은 StreamingPageWriter 참고
+    @GetMapping(value = "/members", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody list(@PageableDefault(size = 5) Pageable pageable) {
+        return out -> readOnly(() -> {
+            try (Stream<MemberDto> members = memberRepository.streamMemberDto(pageable, 0)) {
+                pageWriter.writePage(out, pageable, members, memberRepository::count);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // 전체 개수가 필요없는 클라이언트용 -> 카운트 쿼리 없이 하나 더 읽어서 다음 페이지가 있는지만 알려준다.
+    @GetMapping(value = "/members/slice", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody slice(@PageableDefault(size = 5) Pageable pageable) {
+        return out -> readOnly(() -> {
+            try (Stream<MemberDto> members = memberRepository.streamMemberDto(pageable, 1)) {
+                pageWriter.writeSlice(out, pageable, members);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // 조회는 repositoryExecutor에서 실행하고 요청 스레드는 바로 반환된다. (MVC 비동기 처리)
+    @GetMapping("/members/async/{id}")
+    public CompletableFuture<ResponseEntity<MemberDto>> findMemberAsync(@PathVariable("id") Long id) {
+        return memberRepository.findAsyncMemberDtoById(id)
+                .thenApply(member -> member != null
+                        ? ResponseEntity.ok(member)
+                        : ResponseEntity.<MemberDto>notFound().build());
+    }
+
+    // 키셋 페이징 -> 응답의 nextCursor를 다음 요청의 cursor로 넘기면 페이지 깊이와 상관없이 첫 페이지와 같은 비용으로 조회한다.
+    @GetMapping("/members/cursor")
+    public CursorPage<MemberDto> listByCursor(@RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", defaultValue = "10") int size) {
+        MemberCursor memberCursor = MemberCursor.decode(cursor);
+        int pageSize = Math.min(Math.max(size, 1), maxPageSize);
+
+        Slice<MemberDto> slice = memberRepository.findByIdGreaterThan(memberCursor.getLastId(),
+                        PageRequest.of(0, pageSize, Sort.by(Sort.Direction.ASC, "id")))
                 .map(MemberDto::new);
+
+        List<MemberDto> content = slice.getContent();
+        String nextCursor = slice.hasNext()
+                ? MemberCursor.after(content.get(content.size() - 1).getId()).encode()
+                : null;
+
+        return new CursorPage<>(content, nextCursor, slice.hasNext());
+    }
+
+    // 전체 회원을 NDJSON(한 줄에 JSON 하나)으로 내려준다 -> DB에서 읽는 대로 바로 응답에 쓰기 때문에 테이블 크기와 상관없이 힙 사용량이 일정하다.
+    // StreamingResponseBody는 별도 스레드에서 실행되므로 그 안에서 읽기 전용 트랜잭션을 직접 열어준다.
+    @GetMapping(value = "/members/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody export(@RequestParam(value = "fetchSize", defaultValue = "${datajpa.export.fetch-size:500}") int fetchSize) {
+        return out -> {
+            readOnly(() -> {
+                try (Stream<MemberDto> members = memberRepository.streamMemberDto(fetchSize)) {
+                    members.forEach(member -> writeLine(out, member));
+                }
+            });
+            out.flush();
+        };
+    }
+
+    // Stream은 트랜잭션 안에서 읽어야 한다.
+    private void readOnly(Runnable work) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> work.run());
+    }
+
+    private void writeLine(OutputStream out, MemberDto member) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(member));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 다른 IllegalArgumentException은 서버 오류이므로 잘못된 커서만 400으로 응답한다.
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badRequest(InvalidCursorException e) {
+        return e.getMessage();
     }
 
 //    @PostConstruct
@@ -0,0 +1,93 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/*
+*   Page/Slice를 List나 PageImpl로 만들지 않고 Stream에서 읽는 대로 바로 JSON으로 쓴다.
+*   Page  -> {"content":[...],"number":0,"size":5,"numberOfElements":5,"totalElements":100,"totalPages":20,"hasNext":true}
+*   Slice -> {"content":[...],"number":0,"size":5,"numberOfElements":5,"hasNext":true}
+*   - PageImpl의 pageable, sort 등 요청 값을 되풀이하는 필드는 쓰지 않는다. number는 PageImpl처럼 0부터 시작한다.
+*   - content를 먼저 쓰므로 마지막 페이지처럼 읽은 개수로 전체 개수를 알 수 있으면 카운트 쿼리를 실행하지 않는다. (PageableExecutionUtils와 같은 규칙)
+*   - Slice는 pageSize + 1개까지 읽은 Stream을 받아서 pageSize개만 쓰고, 하나 더 있으면 hasNext = true
+*   Stream은 호출한 쪽에서 닫는다.
+* */
+@Component
+public class StreamingPageWriter {
+
+    private final ObjectMapper objectMapper;
+    // 요소마다 flush 하지 않고 JsonGenerator 버퍼가 찰 때마다 내보낸다.
+    private final ObjectWriter elementWriter;
+
+    public StreamingPageWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.elementWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public <T> void writePage(OutputStream out, Pageable pageable, Stream<T> content, LongSupplier count) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            Iterator<T> rows = content.iterator();
+            int numberOfElements = writeContent(generator, rows, pageable.getPageSize());
+
+            long offset = pageable.getOffset();
+            int size = pageable.getPageSize();
+            long totalElements = numberOfElements < size && (offset == 0 || numberOfElements > 0)
+                    ? offset + numberOfElements
+                    : count.getAsLong();
+            long totalPages = (totalElements + size - 1) / size;
+
+            writeNumbers(generator, pageable, numberOfElements);
+            generator.writeNumberField("totalElements", totalElements);
+            generator.writeNumberField("totalPages", totalPages);
+            generator.writeBooleanField("hasNext", pageable.getPageNumber() + 1 < totalPages);
+            generator.writeEndObject();
+        }
+    }
+
+    public <T> void writeSlice(OutputStream out, Pageable pageable, Stream<T> content) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            Iterator<T> rows = content.iterator();
+            int numberOfElements = writeContent(generator, rows, pageable.getPageSize());
+
+            writeNumbers(generator, pageable, numberOfElements);
+            generator.writeBooleanField("hasNext", rows.hasNext());
+            generator.writeEndObject();
+        }
+    }
+
+    // 응답 스트림은 서블릿 컨테이너가 닫는다.
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private <T> int writeContent(JsonGenerator generator, Iterator<T> rows, int limit) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("content");
+        int count = 0;
+        while (count < limit && rows.hasNext()) {
+            elementWriter.writeValue(generator, rows.next());
+            count++;
+        }
+        generator.writeEndArray();
+        return count;
+    }
+
+    private void writeNumbers(JsonGenerator generator, Pageable pageable, int numberOfElements) throws IOException {
+        generator.writeNumberField("number", pageable.getPageNumber());
+        generator.writeNumberField("size", pageable.getPageSize());
+        generator.writeNumberField("numberOfElements", numberOfElements);
+    }
+}
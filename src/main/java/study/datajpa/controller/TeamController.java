@@ -0,0 +1,25 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.TeamDto;
+import study.datajpa.repository.TeamRepository;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamRepository teamRepository;
+
+    // 팀마다 members를 지연 로딩하지만 @BatchSize 덕분에 IN 쿼리로 묶여서 (팀 조회 1번 + 회원 조회 1번) SQL이 나간다.
+    // 컬렉션 fetch join은 페이징이 불가능하기 때문에 batch fetch로 N + 1을 해결한다.
+    @GetMapping("/teams")
+    public Page<TeamDto> list(@PageableDefault(size = 20) Pageable pageable) {
+        return teamRepository.findAll(pageable)
+                .map(TeamDto::new);
+    }
+}
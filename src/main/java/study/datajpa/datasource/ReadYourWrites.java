@@ -0,0 +1,28 @@
+package study.datajpa.datasource;
+
+/*
+*   "내가 쓴 데이터는 바로 읽을 수 있어야 한다" (read your writes)
+*   replica는 primary보다 늦게 반영되므로(복제 지연), 쓰기 트랜잭션이 커밋된 뒤 maxLag 동안은
+*   같은 스레드(요청)의 읽기 전용 트랜잭션도 primary를 사용한다.
+*   요청이 끝나면 ReadYourWritesFilter가 clear() 해서 다음 요청에 넘어가지 않게 한다.
+* */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void markWrite() {
+        LAST_WRITE.set(System.nanoTime());
+    }
+
+    public static boolean isRecentWrite(long maxLagNanos) {
+        Long lastWrite = LAST_WRITE.get();
+        return lastWrite != null && System.nanoTime() - lastWrite < maxLagNanos;
+    }
+
+    public static void clear() {
+        LAST_WRITE.remove();
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+*   @Transactional(readOnly = true) 는 replica, 나머지(쓰기 트랜잭션, 트랜잭션 밖)는 primary로 보낸다.
+*   트랜잭션의 readOnly 여부는 커넥션을 얻은 다음에 설정되므로 반드시 LazyConnectionDataSourceProxy로 감싸서 사용해야 한다.
+*   (실제 커넥션을 첫 SQL을 실행할 때 얻기 때문에 그 시점에는 readOnly 여부를 알 수 있다)
+* */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final long maxLagNanos;
+
+    public ReplicationRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.maxLagNanos = maxLag.toNanos();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return ReadYourWrites.isRecentWrite(maxLagNanos) ? PRIMARY : REPLICA;
+        }
+
+        // 쓰기 트랜잭션이 커밋되면 그 시점부터 maxLag 동안은 같은 요청의 읽기도 primary에서 한다.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ReadYourWrites.markWrite();
+                }
+            });
+        }
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    // 다음 페이지가 없으면 null
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,11 @@
+package study.datajpa.dto;
+
+/*
+*   클라이언트가 보낸 커서를 해석할 수 없을 때 -> MemberController에서 400으로 응답한다.
+* */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
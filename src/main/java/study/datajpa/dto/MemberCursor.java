@@ -0,0 +1,52 @@
+package study.datajpa.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+*   키셋 페이징에서 사용하는 커서 -> 마지막으로 조회한 member_id를 Base64(URL-safe) 토큰으로 인코딩해서 주고받는다.
+* */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+
+    private static final String PREFIX = "member_id:";
+
+    private final Long lastId;
+
+    // 첫 페이지는 member_id가 1부터 시작하므로 0 이후부터 조회한다.
+    public static MemberCursor first() {
+        return new MemberCursor(0L);
+    }
+
+    public static MemberCursor after(Long lastId) {
+        return new MemberCursor(lastId);
+    }
+
+    public static MemberCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return first();
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("잘못된 커서 형식입니다.");
+            }
+            return new MemberCursor(Long.parseLong(decoded.substring(PREFIX.length())));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException도 IllegalArgumentException의 하위 타입이다.
+            throw new InvalidCursorException("잘못된 커서입니다. cursor = " + token, e);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+}
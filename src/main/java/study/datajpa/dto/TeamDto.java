@@ -0,0 +1,24 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+public class TeamDto {
+
+    private Long id;
+    private String name;
+    private List<String> usernames;
+
+    public TeamDto(Team team) {
+        this.id = team.getId();
+        this.name = team.getName();
+        this.usernames = team.getMembers().stream()
+                .map(Member::getUsername)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,49 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+// BulkUpdateExecutor가 끝낸 구간(chunk) 기록 -> 같은 작업을 다시 실행하면 기록된 [chunkStart, chunkEnd] 구간은 건너뛴다.
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"job_name", "chunk_start"}))
+public class BulkUpdateCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bulk_update_checkpoint_seq_generator")
+    @SequenceGenerator(name = "bulk_update_checkpoint_seq_generator", sequenceName = "bulk_update_checkpoint_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "job_name", nullable = false)
+    private String jobName;
+
+    @Column(name = "chunk_start", nullable = false)
+    private long chunkStart;
+
+    private long chunkEnd;
+    // 구간 경계를 정한 chunk-size -> 다른 크기로 이어서 실행하면 경계가 맞지 않으므로 거부한다.
+    private int chunkSize;
+    private int updatedRows;
+    private LocalDateTime completedDate;
+
+    public BulkUpdateCheckpoint(String jobName, long chunkStart, long chunkEnd, int chunkSize, int updatedRows) {
+        this.jobName = jobName;
+        this.chunkStart = chunkStart;
+        this.chunkEnd = chunkEnd;
+        this.chunkSize = chunkSize;
+        this.updatedRows = updatedRows;
+        this.completedDate = LocalDateTime.now();
+    }
+}
@@ -5,6 +5,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import study.datajpa.id.TimeOrderedId;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
 import javax.persistence.Id;
@@ -26,6 +27,11 @@ public class Item implements Persistable<String> {
         this.id = id;
     }
 
+    // 시간 순서대로 증가하는 id로 만든다 -> 임의의 문자열 id와 달리 기본키 인덱스의 끝에만 insert 된다.
+    public static Item create() {
+        return new Item(TimeOrderedId.next());
+    }
+
     @Override
     public String getId() {
         return id;
@@ -1,10 +1,16 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
@@ -13,15 +19,30 @@ import javax.persistence.*;
         query = "select m from Member m where m.username =:username"
 )
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode("team"))
+// findByUsername, findByUsernameAndAgeGreaterThan, findByAge2, 팀별 회원 조회(batch fetch)의 where 절 컬럼 -> ddl-auto가 스키마를 만들 때 같이 생성된다. (IndexAdvisor)
+@Table(indexes = {
+        @Index(name = "idx_member_username_age", columnList = "username, age"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_team_id", columnList = "team_id")
+})
 public class Member extends BaseEntity {
 
-    @Id @GeneratedValue
+    // 시퀀스 값 하나로 datajpa.id.allocation-size 개의 id를 메모리에서 할당한다.(pooled-lo) persist 할때마다 시퀀스를 조회하지 않는다.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator", strategy = "study.datajpa.id.PooledLoSequenceGenerator",
+            parameters = @Parameter(name = "sequence_name", value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
 
     private String username;
     private int age;
 
+    // 낙관적 락 -> 수정할 때 where version = ? 로 다른 트랜잭션의 변경을 감지한다. (충돌하면 OptimisticLockException)
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
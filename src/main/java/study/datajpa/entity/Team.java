@@ -1,23 +1,46 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// 거의 변경되지 않는 엔티티라서 2차 캐시에 올려둔다 -> 영역(region) 설정은 SecondLevelCacheConfig 참고
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team extends BaseEntity {
 
-    @Id @GeneratedValue
+    // 시퀀스 값 하나로 datajpa.id.allocation-size 개의 id를 메모리에서 할당한다.(pooled-lo) persist 할때마다 시퀀스를 조회하지 않는다.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @GenericGenerator(name = "team_seq_generator", strategy = "study.datajpa.id.PooledLoSequenceGenerator",
+            parameters = @Parameter(name = "sequence_name", value = "team_seq"))
     @Column(name = "team_id")
     private Long id;
 
     private String name;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    // 컬렉션 캐시에는 Member의 id만 저장되므로 Member 엔티티도 같이 캐시해야 효과가 있다.
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    // 팀 하나에 회원이 여러명이라 한번에 가져오는 row 수가 크므로 전역 설정(default_batch_fetch_size)보다 작게 준다.
+    @BatchSize(size = 50)
+    // 회원이 팀에 추가/제거될 때마다 Team의 version이 올라가면 같은 팀의 회원을 수정하는 트랜잭션끼리 충돌하므로 제외한다.
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "team", fetch = FetchType.LAZY)
     private List<Member> members = new ArrayList<>();
 
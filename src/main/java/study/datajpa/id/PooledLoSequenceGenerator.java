@@ -0,0 +1,39 @@
+package study.datajpa.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/*
+*   pooled-lo 최적화를 사용하는 시퀀스 생성기
+*   - 시퀀스 값 하나로 [값, 값 + allocation-size) 범위의 id를 메모리에서 할당한다. (persist 마다 시퀀스를 조회하지 않는다)
+*   - pooled는 시퀀스 값을 할당 범위의 끝(hi)으로, pooled-lo는 범위의 시작(lo)으로 해석한다. 시퀀스 값이 곧 처음 할당되는 id라서 DB의 시퀀스 값과 id를 바로 맞춰볼 수 있다.
+*     (둘 다 시퀀스가 increment by 만큼 증가하므로 다른 애플리케이션/SQL이 nextval 해도 id가 겹치지 않는다)
+*   allocation-size(increment_size)는 datajpa.id.allocation-size 설정으로 바꾼다. (HibernateConfig)
+*   주의) DB 시퀀스의 increment by가 allocation-size와 같아야 한다. (ddl-auto로 만들면 맞춰진다, 운영 DB는 alter sequence 필요)
+*
+*   @GenericGenerator(name = "member_seq_generator", strategy = "study.datajpa.id.PooledLoSequenceGenerator",
+*           parameters = @Parameter(name = "sequence_name", value = "member_seq"))
+* */
+public class PooledLoSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE = "datajpa.id.allocation-size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        // 매핑에 increment_size를 직접 주면 그 값을 사용한다.
+        if (!params.containsKey(INCREMENT_PARAM)) {
+            int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE,
+                    serviceRegistry.getService(ConfigurationService.class).getSettings(), DEFAULT_ALLOCATION_SIZE);
+            params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        }
+        params.setProperty(OPT_PARAM, "pooled-lo");
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,54 @@
+package study.datajpa.id;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+*   시간 순서대로 정렬되는 UUID(v7 형식) 문자열을 만든다. -> 0189f7a2-3b4c-7d5e-8f60-1a2b3c4d5e6f
+*   - 앞 48비트가 밀리초 시각이라 나중에 만든 id가 항상 뒤에 오므로, 인덱스(B-tree)의 마지막 페이지에만 insert 된다.
+*     (랜덤 UUID나 임의의 문자열은 인덱스 전체에 흩어져서 insert 되므로 페이지 분할과 캐시 미스가 많다)
+*   - 같은 밀리초 안에서는 12비트(rand_a 자리)를 카운터로 사용해서 한 JVM 안에서는 항상 증가한다. (4096개를 넘으면 다음 밀리초를 빌려 쓴다)
+*   - 락 없이 AtomicLong CAS로만 시각과 카운터를 올린다.
+*   - 소문자 16진수 고정 길이라 문자열로 정렬해도 생성 순서와 같다.
+* */
+public final class TimeOrderedId {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // (밀리초 << 12) | 카운터
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private TimeOrderedId() {
+    }
+
+    public static String next() {
+        long now = System.currentTimeMillis() << 12;
+        long timeAndCounter = LAST.updateAndGet(last -> Math.max(last + 1, now));
+
+        long msb = ((timeAndCounter >>> 12) << 16) | (0x7L << 12) | (timeAndCounter & 0xFFFL);
+        long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return format(msb, lsb);
+    }
+
+    // UUID.toString()과 같은 8-4-4-4-12 형식
+    private static String format(long msb, long lsb) {
+        char[] chars = new char[36];
+        hex(chars, 0, msb >>> 32, 8);
+        chars[8] = '-';
+        hex(chars, 9, msb >>> 16, 4);
+        chars[13] = '-';
+        hex(chars, 14, msb, 4);
+        chars[18] = '-';
+        hex(chars, 19, lsb >>> 48, 4);
+        chars[23] = '-';
+        hex(chars, 24, lsb, 12);
+        return new String(chars);
+    }
+
+    private static void hex(char[] chars, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package study.datajpa.loader;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+*   id 조회를 묶어서 DB 조회 수를 줄인다.
+*   - single flight : 같은 id를 조회 중이면 새로 조회하지 않고 진행 중인 조회 결과를 같이 받는다.
+*   - batching      : window 안에 들어온 서로 다른 id는 모아서 한번에 조회한다. (findAllById -> where id in (...))
+*   조회가 끝나면 진행 중 목록에서 바로 빠지므로 캐시가 아니다. (끝난 뒤에 들어온 조회는 DB에서 다시 읽는다)
+*   메트릭 (name 태그)
+*   - coalescing.requests : load 호출 수
+*   - coalescing.shared   : 진행 중인 조회에 합류한 수
+*   - coalescing.queries  : 실제 DB 조회 수
+*   - coalescing.ratio    : requests / queries (조회 하나가 처리한 평균 요청 수)
+* */
+public class CoalescingLoader<ID, T> implements MeterBinder {
+
+    private final String name;
+    private final Function<List<ID>, Map<ID, T>> batchLoader;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final Duration window;
+    private final int maxBatchSize;
+
+    private final ConcurrentMap<ID, CompletableFuture<Optional<T>>> inFlight = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private List<ID> pending = new ArrayList<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+
+    // batchLoader는 없는 id를 결과 Map에서 빼고 반환하면 된다. (Optional.empty()로 완료된다)
+    public CoalescingLoader(String name, Function<List<ID>, Map<ID, T>> batchLoader, Executor executor,
+                            ScheduledExecutorService scheduler, Duration window, int maxBatchSize) {
+        this.name = name;
+        this.batchLoader = batchLoader;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.window = window;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    public CompletableFuture<Optional<T>> load(ID id) {
+        requests.increment();
+        CompletableFuture<Optional<T>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<T>> existing = inFlight.putIfAbsent(id, future);
+        if (existing != null) {
+            shared.increment();
+            return existing;
+        }
+        enqueue(id);
+        return future;
+    }
+
+    // 조회가 끝날 때까지 기다린다. (조회 중 발생한 예외는 그대로 던진다)
+    public Optional<T> find(ID id) {
+        try {
+            return load(id).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("coalescing.requests", requests, LongAdder::sum)
+                .description("Lookups requested through the coalescing loader")
+                .tag("name", name)
+                .register(registry);
+        FunctionCounter.builder("coalescing.shared", shared, LongAdder::sum)
+                .description("Lookups that joined an in-flight load for the same key")
+                .tag("name", name)
+                .register(registry);
+        FunctionCounter.builder("coalescing.queries", queries, LongAdder::sum)
+                .description("Database queries issued by the coalescing loader")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("coalescing.ratio", this, CoalescingLoader::getCoalescingRatio)
+                .description("Lookups served per database query")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    public double getCoalescingRatio() {
+        long queryCount = queries.sum();
+        return queryCount == 0 ? 0 : (double) requests.sum() / queryCount;
+    }
+
+    private void enqueue(ID id) {
+        List<ID> batch = null;
+        synchronized (lock) {
+            pending.add(id);
+            if (pending.size() >= maxBatchSize || window.isZero()) {
+                batch = drain();
+            } else if (pending.size() == 1) {
+                // 처음 들어온 id 기준으로 window가 지나면 모인 id를 조회한다.
+                scheduler.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    private void flush() {
+        List<ID> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private List<ID> drain() {
+        List<ID> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void dispatch(List<ID> batch) {
+        try {
+            executor.execute(() -> loadBatch(batch));
+        } catch (RejectedExecutionException e) {
+            complete(batch, Collections.emptyMap(), e);
+        }
+    }
+
+    private void loadBatch(List<ID> batch) {
+        queries.increment();
+        try {
+            complete(batch, batchLoader.apply(batch), null);
+        } catch (RuntimeException | Error e) {
+            complete(batch, Collections.emptyMap(), e);
+        }
+    }
+
+    // 진행 중 목록에서 먼저 빼고 완료해야, 완료된 뒤에 들어온 조회가 끝난 결과에 합류하지 않는다.
+    private void complete(List<ID> batch, Map<ID, T> loaded, Throwable failure) {
+        for (ID id : batch) {
+            CompletableFuture<Optional<T>> future = inFlight.remove(id);
+            if (future == null) {
+                continue;
+            }
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(Optional.ofNullable(loaded.get(id)));
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package study.datajpa.loader;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.AsyncConfig;
+import study.datajpa.datasource.ReadYourWrites;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/*
+*   MemberRepository.findById 앞에서 동시에 들어온 회원 조회를 묶는다. (CoalescingLoader)
+*   같은 id를 조회하는 요청이 몇백개 몰려도 DB 조회는 하나만 실행되고, window 안에 들어온 다른 id들은 where id in (...) 한번으로 조회한다.
+*   in 쿼리는 2차 캐시를 거치지 않으므로, 2차 캐시에 있는 id는 묶지 않고 바로 em.find로 캐시에서 읽는다. (캐시에 없는 id만 묶는다)
+*   묶은 조회는 repositoryExecutor 스레드에서 실행되어 요청 스레드의 ReadYourWrites가 보이지 않으므로(replica로 간다),
+*   방금 쓰기를 커밋한 요청은 묶지 않고 요청 스레드에서 바로 조회한다. (primary에서 읽는다)
+*   주의) 조회한 Member는 트랜잭션이 끝난 준영속 엔티티이고 여러 요청이 같은 인스턴스를 받으므로 읽기 용도로만 사용한다. (지연 로딩 불가)
+* */
+@Component
+public class MemberLoader implements MeterBinder {
+
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("coalescing-"));
+    private final CoalescingLoader<Long, Member> loader;
+    private final EntityManager em;
+    private final Cache secondLevelCache;
+    private final TransactionTemplate transaction;
+    private final long maxLagNanos;
+
+    public MemberLoader(MemberRepository memberRepository,
+                        EntityManager em,
+                        PlatformTransactionManager transactionManager,
+                        @Qualifier(AsyncConfig.REPOSITORY_EXECUTOR) ExecutorService repositoryExecutor,
+                        @Value("${datajpa.coalescing.window:2ms}") Duration window,
+                        @Value("${datajpa.coalescing.max-batch-size:100}") int maxBatchSize,
+                        @Value("${datajpa.datasource.replica.max-lag:1s}") Duration maxLag) {
+        this.em = em;
+        this.maxLagNanos = maxLag.toNanos();
+        this.secondLevelCache = em.getEntityManagerFactory().getCache();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        this.transaction = transaction;
+        this.loader = new CoalescingLoader<>("member",
+                ids -> transaction.execute(status -> byId(memberRepository.findAllById(ids))),
+                repositoryExecutor, scheduler, window, maxBatchSize);
+    }
+
+    public Optional<Member> findById(Long id) {
+        return coalesce(id) ? loader.find(id) : findDirect(id);
+    }
+
+    public CompletableFuture<Optional<Member>> load(Long id) {
+        return coalesce(id) ? loader.load(id) : CompletableFuture.completedFuture(findDirect(id));
+    }
+
+    private boolean coalesce(Long id) {
+        return !secondLevelCache.contains(Member.class, id) && !ReadYourWrites.isRecentWrite(maxLagNanos);
+    }
+
+    // 2차 캐시에 있으면 SQL이 실행되지 않고, 없으면 요청 스레드의 라우팅대로 DB에서 읽는다.
+    private Optional<Member> findDirect(Long id) {
+        return Optional.ofNullable(transaction.execute(status -> em.find(Member.class, id)));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        loader.bindTo(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static Map<Long, Member> byId(List<Member> members) {
+        Map<Long, Member> byId = new HashMap<>();
+        for (Member member : members) {
+            byId.put(member.getId(), member);
+        }
+        return byId;
+    }
+}
@@ -0,0 +1,25 @@
+package study.datajpa.monitoring;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+
+import javax.persistence.EntityManagerFactory;
+
+// 엔티티가 영속성 컨텍스트에 로딩될 때마다 현재 스레드에 열린 StatementScope에 기록한다. (2차 캐시에서 가져온 엔티티 포함)
+public class EntityLoadCountingListener implements PostLoadEventListener {
+
+    public static void register(EntityManagerFactory entityManagerFactory) {
+        entityManagerFactory.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, new EntityLoadCountingListener());
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        StatementScope.recordLoadOnCurrentThread();
+    }
+}
@@ -0,0 +1,306 @@
+package study.datajpa.monitoring;
+
+import lombok.Getter;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/*
+*   실행된 SQL의 where/order by/join 컬럼으로 필요한 인덱스를 추천한다. -> /actuator/indexadvice
+*   - SQL은 SqlStatistics에 모인 지문(fingerprint)을 분석하므로 SQL을 실행할 때는 추가 비용이 없다.
+*   - 테이블마다 = / in 조건 컬럼 -> 범위 조건 컬럼 하나(범위 조건이 없으면 order by 컬럼) 순서로 인덱스 후보를 만든다.
+*   - DB 스키마(DatabaseMetaData)의 인덱스나 PK가 후보 컬럼으로 시작하면 이미 있는 것으로 보고 제외한다.
+*   - 엔티티의 @Table(indexes = ...)에 선언됐지만 스키마에 없으면(ddl-auto가 만들지 않은 경우) declared = true로 표시한다.
+*   - 후보가 필요한 SQL의 전체 실행 시간 합계가 큰 순서로 정렬한다.
+*   SQL을 완전히 파싱하지는 않는다. 함수로 감싼 컬럼(upper(username) = ?), 서브쿼리, 콤마 조인은 분석하지 않는다.
+* */
+@Component
+public class IndexAdvisor {
+
+    private static final Pattern TABLE = Pattern.compile(
+            "\\b(?:from|join|update)\\s+(\\w+)(?:\\s+(?:as\\s+)?(?!(?:where|on|left|right|inner|outer|cross|full|join|order|group|limit|offset|set|for)\\b)(\\w+))?");
+    private static final Pattern PREDICATE = Pattern.compile(
+            "(?:(\\w+)\\.)?(\\w+)\\s*(=|<>|!=|>=|<=|>|<|\\blike\\b|\\bin\\b|\\bbetween\\b)\\s*\\(?\\?");
+    private static final Pattern JOIN_CONDITION = Pattern.compile("(\\w+)\\.(\\w+)\\s*=\\s*(\\w+)\\.(\\w+)");
+    private static final Pattern WHERE_END = Pattern.compile("\\b(?:group by|order by|limit|offset|fetch|for update)\\b");
+    private static final Pattern ORDER_BY = Pattern.compile("\\border by\\s+(.+?)(?:\\s+\\b(?:limit|offset|fetch|for update)\\b|\\)|$)");
+    private static final Pattern ORDER_COLUMN = Pattern.compile("^(?:(\\w+)\\.)?(\\w+)(?:\\s+(?:asc|desc))?(?:\\s+nulls\\s+(?:first|last))?$");
+    private static final Set<String> EQUALITY = new HashSet<>(Arrays.asList("=", "in"));
+
+    private final SqlStatistics sqlStatistics;
+    private final EntityManagerFactory emf;
+    private final DataSource dataSource;
+
+    public IndexAdvisor(SqlStatistics sqlStatistics, EntityManagerFactory emf, DataSource dataSource) {
+        this.sqlStatistics = sqlStatistics;
+        this.emf = emf;
+        this.dataSource = dataSource;
+    }
+
+    public List<Recommendation> recommendations() {
+        Map<String, List<List<String>>> declared = declaredIndexes();
+        Map<String, List<List<String>>> existing = new TreeMap<>();
+
+        Map<IndexCandidate, Recommendation> recommendations = new LinkedHashMap<>();
+        for (SqlStatistics.StatementSummary statement : sqlStatistics.summaries("totalTime", Integer.MAX_VALUE)) {
+            for (IndexCandidate candidate : candidates(statement.getFingerprint())) {
+                List<List<String>> indexes = existing.computeIfAbsent(candidate.table, this::schemaIndexes);
+                if (covered(candidate.columns, indexes)) {
+                    continue;
+                }
+                recommendations.computeIfAbsent(candidate, key ->
+                                new Recommendation(key.table, key.columns, covered(key.columns, declared.getOrDefault(key.table, List.of()))))
+                        .add(statement);
+            }
+        }
+
+        return recommendations.values().stream()
+                .sorted(Comparator.comparingDouble(Recommendation::getTotalTimeMs).reversed())
+                .collect(Collectors.toList());
+    }
+
+    // SQL 지문 하나에서 테이블별 인덱스 후보를 뽑는다.
+    static List<IndexCandidate> candidates(String fingerprint) {
+        String sql = fingerprint.toLowerCase(Locale.ROOT);
+        if (!(sql.startsWith("select") || sql.startsWith("with") || sql.startsWith("update") || sql.startsWith("delete"))) {
+            return List.of();
+        }
+
+        Map<String, String> tables = tables(sql);
+        Map<String, Set<String>> equality = new LinkedHashMap<>();
+        Map<String, Set<String>> range = new LinkedHashMap<>();
+        Map<String, Set<String>> orderBy = new LinkedHashMap<>();
+
+        int where = sql.indexOf(" where ");
+        if (where >= 0) {
+            String condition = sql.substring(where + " where ".length());
+            Matcher end = WHERE_END.matcher(condition);
+            if (end.find()) {
+                condition = condition.substring(0, end.start());
+            }
+            Matcher predicate = PREDICATE.matcher(condition);
+            while (predicate.find()) {
+                String table = resolve(tables, predicate.group(1));
+                if (table != null) {
+                    (EQUALITY.contains(predicate.group(3)) ? equality : range)
+                            .computeIfAbsent(table, key -> new LinkedHashSet<>()).add(predicate.group(2));
+                }
+            }
+        }
+
+        // 조인 조건(a.team_id = b.team_id)은 반대쪽 테이블에서 그 컬럼 하나로 찾는 것이므로 where 조건과 섞지 않고 따로 후보를 만든다.
+        Set<IndexCandidate> joins = new LinkedHashSet<>();
+        Matcher join = JOIN_CONDITION.matcher(sql);
+        while (join.find()) {
+            for (int group = 1; group <= 3; group += 2) {
+                String table = tables.get(join.group(group));
+                if (table != null) {
+                    joins.add(new IndexCandidate(table, List.of(join.group(group + 1))));
+                }
+            }
+        }
+
+        Matcher order = ORDER_BY.matcher(sql);
+        if (order.find()) {
+            for (String item : order.group(1).split(",")) {
+                Matcher column = ORDER_COLUMN.matcher(item.trim());
+                String table = column.matches() ? resolve(tables, column.group(1)) : null;
+                if (table != null) {
+                    orderBy.computeIfAbsent(table, key -> new LinkedHashSet<>()).add(column.group(2));
+                }
+            }
+        }
+
+        Set<String> candidateTables = new LinkedHashSet<>();
+        candidateTables.addAll(equality.keySet());
+        candidateTables.addAll(range.keySet());
+        candidateTables.addAll(orderBy.keySet());
+
+        List<IndexCandidate> candidates = new ArrayList<>();
+        for (String table : candidateTables) {
+            List<String> columns = new ArrayList<>(equality.getOrDefault(table, Set.of()));
+            Set<String> ranges = range.getOrDefault(table, Set.of());
+            if (!ranges.isEmpty()) {
+                // 범위 조건 뒤의 컬럼은 인덱스로 거르지 못하므로 하나만 붙인다.
+                ranges.stream().filter(column -> !columns.contains(column)).findFirst().ifPresent(columns::add);
+            } else {
+                orderBy.getOrDefault(table, Set.of()).stream().filter(column -> !columns.contains(column)).forEach(columns::add);
+            }
+            candidates.add(new IndexCandidate(table, columns));
+        }
+        joins.stream().filter(candidate -> !candidates.contains(candidate)).forEach(candidates::add);
+        return candidates;
+    }
+
+    // 별칭 -> 테이블 (테이블 이름으로도 찾을 수 있다)
+    private static Map<String, String> tables(String sql) {
+        Map<String, String> tables = new LinkedHashMap<>();
+        Matcher matcher = TABLE.matcher(sql);
+        while (matcher.find()) {
+            String table = matcher.group(1);
+            tables.put(table, table);
+            if (matcher.group(2) != null) {
+                tables.put(matcher.group(2), table);
+            }
+        }
+        return tables;
+    }
+
+    // 별칭이 없는 컬럼은 테이블이 하나일 때만 알 수 있다.
+    private static String resolve(Map<String, String> tables, String alias) {
+        if (alias != null) {
+            return tables.get(alias);
+        }
+        Set<String> distinct = new HashSet<>(tables.values());
+        return distinct.size() == 1 ? distinct.iterator().next() : null;
+    }
+
+    // 인덱스 앞쪽 컬럼이 후보 컬럼과 같으면(순서 무관) 이미 있는 인덱스로 찾을 수 있다.
+    private static boolean covered(List<String> columns, List<List<String>> indexes) {
+        Set<String> required = new HashSet<>(columns);
+        for (List<String> index : indexes) {
+            if (index.size() >= columns.size() && new HashSet<>(index.subList(0, columns.size())).equals(required)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<List<String>> schemaIndexes(String table) {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+
+            Map<String, TreeMap<Short, String>> indexes = new LinkedHashMap<>();
+            try (ResultSet rs = metaData.getIndexInfo(null, null, tableName, false, true)) {
+                while (rs.next()) {
+                    String column = rs.getString("COLUMN_NAME");
+                    if (column != null) {
+                        indexes.computeIfAbsent(rs.getString("INDEX_NAME"), key -> new TreeMap<>())
+                                .put(rs.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            List<List<String>> result = new ArrayList<>();
+            indexes.values().forEach(index -> result.add(new ArrayList<>(index.values())));
+            try (ResultSet rs = metaData.getPrimaryKeys(null, null, tableName)) {
+                TreeMap<Short, String> primaryKey = new TreeMap<>();
+                while (rs.next()) {
+                    primaryKey.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                }
+                if (!primaryKey.isEmpty()) {
+                    result.add(new ArrayList<>(primaryKey.values()));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new IllegalStateException("인덱스 정보를 조회할 수 없습니다. table = " + table, e);
+        }
+    }
+
+    // 엔티티 테이블 -> @Table(indexes = ...)에 선언된 인덱스 컬럼
+    private Map<String, List<List<String>>> declaredIndexes() {
+        Map<String, List<List<String>>> declared = new TreeMap<>();
+        for (EntityPersister persister : emf.unwrap(SessionFactoryImplementor.class).getMetamodel().entityPersisters().values()) {
+            Table table = persister.getMappedClass().getAnnotation(Table.class);
+            if (table == null || !(persister instanceof AbstractEntityPersister)) {
+                continue;
+            }
+            List<List<String>> indexes = declared.computeIfAbsent(
+                    ((AbstractEntityPersister) persister).getTableName().toLowerCase(Locale.ROOT), key -> new ArrayList<>());
+            for (Index index : table.indexes()) {
+                indexes.add(Arrays.stream(index.columnList().split(","))
+                        .map(column -> column.trim().split("\\s+")[0].toLowerCase(Locale.ROOT))
+                        .collect(Collectors.toList()));
+            }
+        }
+        return declared;
+    }
+
+    static final class IndexCandidate {
+
+        final String table;
+        final List<String> columns;
+
+        IndexCandidate(String table, List<String> columns) {
+            this.table = table;
+            this.columns = columns;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof IndexCandidate)) {
+                return false;
+            }
+            IndexCandidate that = (IndexCandidate) o;
+            return table.equals(that.table) && columns.equals(that.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * table.hashCode() + columns.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return table + columns;
+        }
+    }
+
+    @Getter
+    public static class Recommendation {
+
+        private final String table;
+        private final List<String> columns;
+        private final String ddl;
+        // 엔티티에 붙여서 ddl-auto로 만들 때 사용
+        private final String index;
+        // @Table(indexes = ...)에는 있지만 스키마에 없다.
+        private final boolean declared;
+        private long calls;
+        private double totalTimeMs;
+        private final List<String> statements = new ArrayList<>();
+
+        public Recommendation(String table, List<String> columns, boolean declared) {
+            String name = "idx_" + table + "_" + String.join("_", columns);
+            this.table = table;
+            this.columns = columns;
+            this.ddl = "create index " + name + " on " + table + " (" + String.join(", ", columns) + ")";
+            this.index = "@Index(name = \"" + name + "\", columnList = \"" + String.join(", ", columns) + "\")";
+            this.declared = declared;
+        }
+
+        private void add(SqlStatistics.StatementSummary statement) {
+            calls += statement.getCalls();
+            totalTimeMs += statement.getTotalTimeMs();
+            statements.add(statement.getFingerprint());
+        }
+    }
+}
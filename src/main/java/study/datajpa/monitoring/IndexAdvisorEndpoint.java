@@ -0,0 +1,25 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+*   GET /actuator/indexadvice -> 추천 인덱스 DDL, @Index 선언 (SQL 실행 시간 합계가 큰 순서)
+*   SQL 통계를 초기화(DELETE /actuator/sqlstats)하면 추천도 다시 모인다.
+* */
+@Component
+@Endpoint(id = "indexadvice")
+@RequiredArgsConstructor
+public class IndexAdvisorEndpoint {
+
+    private final IndexAdvisor indexAdvisor;
+
+    @ReadOperation
+    public List<IndexAdvisor.Recommendation> recommendations() {
+        return indexAdvisor.recommendations();
+    }
+}
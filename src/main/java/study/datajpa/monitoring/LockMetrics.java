@@ -0,0 +1,58 @@
+package study.datajpa.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/*
+*   비관적 락과 낙관적 락의 비용을 같은 기준으로 비교하기 위한 메트릭
+*   - lock.wait            : select ... for update 가 락을 얻을 때까지 걸린 시간 (name)
+*   - optimistic.attempts  : @OptimisticRetry 메서드가 성공(실패)할 때까지 실행된 횟수 (name, outcome)
+*   - optimistic.retries   : 충돌로 다시 실행한 횟수 (name)
+* */
+@Component
+public class LockMetrics {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public LockMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T recordLockWait(String name, Supplier<T> lockQuery) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return lockQuery.get();
+        }
+        return Timer.builder("lock.wait")
+                .description("Time spent acquiring pessimistic row locks")
+                .tag("name", name)
+                .register(registry)
+                .record(lockQuery);
+    }
+
+    public void recordAttempts(String name, int attempts, boolean success) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        DistributionSummary.builder("optimistic.attempts")
+                .description("Executions until an @OptimisticRetry method completed")
+                .tag("name", name)
+                .tag("outcome", success ? "success" : "failure")
+                .register(registry)
+                .record(attempts);
+        if (attempts > 1) {
+            Counter.builder("optimistic.retries")
+                    .description("Re-executions caused by optimistic lock conflicts")
+                    .tag("name", name)
+                    .register(registry)
+                    .increment(attempts - 1);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package study.datajpa.monitoring;
+
+/*
+*   현재 스레드에서 실행 중인 리포지토리 메서드 (MemberRepository.findByAge 등) -> 느린 SQL이 어디서 실행됐는지 남길 때 사용한다.
+*   리포지토리 메서드가 다른 리포지토리 메서드를 호출하면 바깥 메서드를 남긴다. (QueryOriginAspect)
+* */
+public final class QueryOrigin {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private QueryOrigin() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    static void set(String origin) {
+        CURRENT.set(origin);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,32 @@
+package study.datajpa.monitoring;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import study.datajpa.repository.MemberRepository;
+
+/*
+*   MemberRepository(Spring Data), MemberJpaRepository(순수 JPA) 메서드를 실행하는 동안 QueryOrigin을 남긴다.
+*   QueryOrigin이 있는 SQL만 느릴 때 실행 계획을 조회한다. (SlowQueryExplainer)
+* */
+@Aspect
+@Component
+public class QueryOriginAspect {
+
+    @Around("target(study.datajpa.repository.MemberRepository) || target(study.datajpa.repository.MemberJpaRepository)")
+    public Object origin(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (QueryOrigin.current() != null) {
+            return joinPoint.proceed();
+        }
+
+        // findAll 처럼 상위 인터페이스에 선언된 메서드도 리포지토리 이름으로 남긴다.
+        String repository = joinPoint.getTarget() instanceof MemberRepository ? "MemberRepository" : "MemberJpaRepository";
+        QueryOrigin.set(repository + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            QueryOrigin.clear();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package study.datajpa.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+/*
+*   Spring Data 리포지토리 메서드 호출마다 기록하는 메트릭 (repository, method 태그) -> /actuator/metrics/repository.*
+*   method 태그는 오버로딩된 메서드가 섞이지 않도록 파라미터 타입까지 붙인다. (예: findProjectionsByUsername(String,Class))
+*   - repository.invocations : 실행 시간 (outcome=success|error), 트랜잭션 시작/커밋 포함, p50/p95/p99
+*     @Async 메서드는 @Async 인터셉터가 이 인터셉터보다 앞에 있어서 repositoryExecutor 스레드에서 쿼리 실행 시간이 기록된다.
+*     그 밖에 CompletionStage를 반환하면 완료될 때까지, CompletionStage가 아닌 Future는 완료 시점을 알 수 없으므로 반환할 때까지의 시간이다.
+*     Stream은 쿼리를 실행해서 Stream을 반환할 때까지의 시간이다. (결과를 읽는 시간은 호출한 쪽의 시간이라 제외)
+*   - repository.statements  : 실행된 SQL 수 (flush 포함)
+*   - repository.rows        : 반환한 결과 수 (컬렉션/Page/Slice는 크기, Optional/단건은 0 또는 1, CompletableFuture는 완료된 값 기준, Stream은 기록하지 않는다)
+*   - repository.entities    : 영속성 컨텍스트에 로딩된 엔티티 수 (지연 로딩/batch fetch로 같이 로딩된 엔티티 포함)
+*   커스텀 구현(MemberRepositoryImpl 등)의 메서드도 리포지토리 프록시를 거치므로 같이 기록된다.
+*   메서드마다 미터를 한번만 만들어두므로 호출할 때는 ThreadLocal 범위를 열고 닫는 비용만 든다.
+*   주의) 다른 스레드에서 실행된 SQL(InQueryExecutor의 동시 조회 등)은 세지 않는다.
+* */
+@Component
+public class RepositoryMetrics {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final boolean enabled;
+
+    public RepositoryMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                             @Value("${datajpa.repository-metrics.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // CrudRepository.findById 처럼 여러 리포지토리가 같은 Method를 공유하므로 리포지토리마다 인터셉터를 만든다.
+    public MethodInterceptor interceptor(Class<?> repositoryInterface) {
+        return new Interceptor(repositoryInterface.getSimpleName());
+    }
+
+    private final class Interceptor implements MethodInterceptor {
+
+        private final String repository;
+        private final ConcurrentMap<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+        private Interceptor(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null) {
+                return invocation.proceed();
+            }
+
+            MethodMeters methodMeters = meters.computeIfAbsent(invocation.getMethod(),
+                    method -> new MethodMeters(registry, repository, methodTag(method)));
+            StatementScope scope = StatementScope.open("repository");
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invocation.proceed();
+            } catch (Throwable e) {
+                scope.close();
+                methodMeters.record(System.nanoTime() - start, scope, null);
+                throw e;
+            }
+            scope.close();
+
+            // 비동기 결과는 반환할 때가 아니라 완료될 때까지의 시간과 완료된 값으로 기록한다.
+            if (result instanceof CompletionStage) {
+                ((CompletionStage<?>) result).whenComplete((value, error) -> methodMeters.record(System.nanoTime() - start,
+                        scope, error == null ? rows(value, invocation.getMethod()) : null));
+                return result;
+            }
+            methodMeters.record(System.nanoTime() - start, scope, rows(result, invocation.getMethod()));
+            return result;
+        }
+    }
+
+    private static final class MethodMeters {
+
+        private final Timer success;
+        private final Timer error;
+        private final DistributionSummary statements;
+        private final DistributionSummary rows;
+        private final DistributionSummary entities;
+
+        private MethodMeters(MeterRegistry registry, String repository, String method) {
+            this.success = timer(registry, repository, method, "success");
+            this.error = timer(registry, repository, method, "error");
+            this.statements = summary(registry, "repository.statements", "SQL statements per repository invocation", repository, method);
+            this.rows = summary(registry, "repository.rows", "Results returned per repository invocation", repository, method);
+            this.entities = summary(registry, "repository.entities", "Entities loaded into the persistence context per repository invocation", repository, method);
+        }
+
+        // rowCount가 null이면 실패한 호출
+        private void record(long elapsedNanos, StatementScope scope, Integer rowCount) {
+            (rowCount != null ? success : error).record(elapsedNanos, TimeUnit.NANOSECONDS);
+            statements.record(scope.getCount());
+            entities.record(scope.getLoadedEntities());
+            if (rowCount != null && rowCount >= 0) {
+                rows.record(rowCount);
+            }
+        }
+
+        private static Timer timer(MeterRegistry registry, String repository, String method, String outcome) {
+            return Timer.builder("repository.invocations")
+                    .description("Repository method latency")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry);
+        }
+
+        private static DistributionSummary summary(MeterRegistry registry, String name, String description,
+                                                   String repository, String method) {
+            return DistributionSummary.builder(name)
+                    .description(description)
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .register(registry);
+        }
+    }
+
+    // 메서드 이름(파라미터 타입의 단순 이름, ...)
+    static String methodTag(Method method) {
+        StringJoiner parameters = new StringJoiner(",", method.getName() + "(", ")");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            parameters.add(parameterType.getSimpleName());
+        }
+        return parameters.toString();
+    }
+
+    // 결과 수를 알 수 없으면 -1
+    static int rows(Object result, Method method) {
+        if (method.getReturnType() == void.class || result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof BaseStream || result instanceof Future || result instanceof Iterable) {
+            return -1;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,31 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+*   GET    /actuator/slowqueries -> 느린 SQL과 실행 계획 (최근 순서)
+*   DELETE /actuator/slowqueries -> 비우기
+* */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final SlowQueryExplainer slowQueryExplainer;
+
+    @ReadOperation
+    public List<SlowQueryExplainer.SlowQueryPlan> plans() {
+        return slowQueryExplainer.plans();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryExplainer.clear();
+    }
+}
@@ -0,0 +1,167 @@
+package study.datajpa.monitoring;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/*
+*   MemberRepository, MemberJpaRepository에서 실행한 select가 threshold 이상 걸리면 SQL과 파라미터를 남기고
+*   별도 스레드(explain-)에서 같은 파라미터로 EXPLAIN을 실행해서 실행 계획을 최근 buffer-size 개까지 보관한다. -> /actuator/slowqueries
+*   - 요청 스레드는 대기열에 넣기만 하고 기다리지 않는다. 대기열이 차면 버린다.
+*   - 같은 SQL의 EXPLAIN이 대기 중이면 다시 넣지 않는다. (느린 SQL이 몰려도 EXPLAIN이 DB 부하를 더하지 않게)
+*   - EXPLAIN은 SQL을 실행하지 않고 계획만 조회한다. (EXPLAIN ANALYZE는 다시 실행하므로 사용하지 않는다)
+*   - EXPLAIN은 SqlStatistics로 감싸기 전 DataSource에서 실행하므로 SQL 통계에 섞이지 않는다.
+*   datajpa.sql.statistics.enabled=false 이면 SQL을 가로채지 않으므로 동작하지 않는다.
+* */
+@Slf4j
+@Component
+public class SlowQueryExplainer {
+
+    private final ObjectProvider<DataSource> dataSource;
+    private final long thresholdNanos;
+    private final int bufferSize;
+    private final Deque<SlowQueryPlan> plans = new ArrayDeque<>();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+    // explain- 스레드에서만 사용한다.
+    private JdbcTemplate jdbcTemplate;
+
+    // DataSource를 감쌀 때 만들어지므로 DataSource는 EXPLAIN을 실행할 때 꺼낸다.
+    public SlowQueryExplainer(ObjectProvider<DataSource> dataSource,
+                              @Value("${datajpa.slow-query.threshold:200ms}") Duration threshold,
+                              @Value("${datajpa.slow-query.buffer-size:100}") int bufferSize) {
+        this.dataSource = dataSource;
+        this.thresholdNanos = threshold.toNanos();
+        this.bufferSize = Math.max(1, bufferSize);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("explain-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(this.bufferSize), threadFactory);
+    }
+
+    // 파라미터는 느린 SQL일 때만 꺼낸다.
+    public void capture(String sql, long elapsedNanos, Supplier<List<Object>> parameters) {
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        String origin = QueryOrigin.current();
+        if (origin == null || !isSelect(sql) || !pending.add(sql)) {
+            return;
+        }
+
+        List<Object> values = parameters.get();
+        LocalDateTime executedAt = LocalDateTime.now();
+        String thread = Thread.currentThread().getName();
+        try {
+            executor.execute(() -> {
+                try {
+                    add(explain(origin, sql, values, elapsedNanos, executedAt, thread));
+                } finally {
+                    pending.remove(sql);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(sql);
+            log.debug("EXPLAIN 대기열이 가득 차서 버립니다. origin = {}", origin);
+        }
+    }
+
+    // 최근 순서
+    public List<SlowQueryPlan> plans() {
+        synchronized (plans) {
+            return new ArrayList<>(plans);
+        }
+    }
+
+    public void clear() {
+        synchronized (plans) {
+            plans.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private SlowQueryPlan explain(String origin, String sql, List<Object> parameters, long elapsedNanos,
+                                  LocalDateTime executedAt, String thread) {
+        List<String> parameterValues = parameters.stream().map(String::valueOf).collect(Collectors.toList());
+        try {
+            List<String> rows = jdbcTemplate().query("EXPLAIN " + sql, (rs, rowNum) -> rs.getString(1), parameters.toArray());
+            return new SlowQueryPlan(origin, sql, parameterValues, elapsedNanos, executedAt, thread, String.join("\n", rows), null);
+        } catch (RuntimeException e) {
+            log.debug("EXPLAIN 실패. sql = {}", sql, e);
+            return new SlowQueryPlan(origin, sql, parameterValues, elapsedNanos, executedAt, thread, null, e.getMessage());
+        }
+    }
+
+    private void add(SlowQueryPlan plan) {
+        synchronized (plans) {
+            plans.addFirst(plan);
+            if (plans.size() > bufferSize) {
+                plans.removeLast();
+            }
+        }
+    }
+
+    private JdbcTemplate jdbcTemplate() {
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(SqlStatisticsDataSource.unwrap(dataSource.getObject()));
+        }
+        return jdbcTemplate;
+    }
+
+    private static boolean isSelect(String sql) {
+        String trimmed = sql.trim().toLowerCase(Locale.ROOT);
+        return trimmed.startsWith("select") || trimmed.startsWith("with");
+    }
+
+    @Getter
+    public static class SlowQueryPlan {
+
+        private final String origin;
+        private final String sql;
+        private final List<String> parameters;
+        private final double elapsedMs;
+        private final LocalDateTime executedAt;
+        private final String thread;
+        private final String plan;
+        // EXPLAIN이 실패하면 plan 대신 남는다.
+        private final String error;
+
+        public SlowQueryPlan(String origin, String sql, List<String> parameters, long elapsedNanos,
+                             LocalDateTime executedAt, String thread, String plan, String error) {
+            this.origin = origin;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.elapsedMs = elapsedNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+            this.executedAt = executedAt;
+            this.thread = thread;
+            this.plan = plan;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package study.datajpa.monitoring;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/*
+*   SQL을 지문(fingerprint)으로 바꾼다 -> 리터럴 값만 다른 SQL은 같은 지문이 된다. (pg_stat_statements의 정규화와 같은 방식)
+*   select * from member where username = 'kim' and age > 10 and id in (1, 2, 3)
+*   -> select * from member where username = ? and age > ? and id in (?...)
+* */
+public final class SqlFingerprint {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/|--[^\\n]*", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = COMMENT.matcher(normalized).replaceAll(" ");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        // in 절은 파라미터 수와 상관없이 같은 지문으로 묶는다.
+        normalized = IN_LIST.matcher(normalized).replaceAll("in (?...)");
+        return normalized.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,206 @@
+package study.datajpa.monitoring;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/*
+*   SQL 지문(SqlFingerprint)별 실행 통계 (pg_stat_statements와 비슷하다) -> /actuator/sqlstats
+*   - 지문마다 호출 수, 전체/최대 실행 시간, row 수를 락 없는 카운터(LongAdder)로 센다.
+*   - slow-threshold 이상 걸린 SQL은 바인딩 파라미터와 같이 가장 느린 slow-top-n 개만 보관한다.
+*   Hibernate가 만드는 SQL은 값이 ?로 바인딩되어 종류가 적으므로, 원본 SQL -> 통계를 캐시해서 매번 정규화하지 않는다.
+*   SQL마다 로그를 남기는 것(show_sql, org.hibernate.SQL=debug)과 달리 문자열을 만들거나 출력하지 않는다.
+* */
+@Component
+public class SqlStatistics {
+
+    // 리터럴이 그대로 들어간 SQL이 많아도 캐시가 무한히 커지지 않게 제한한다.
+    private static final int MAX_CACHED_SQL = 10_000;
+
+    private final ConcurrentMap<String, StatementStats> bySql = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, StatementStats> byFingerprint = new ConcurrentHashMap<>();
+
+    private final long slowThresholdNanos;
+    private final int slowTopN;
+    private final PriorityQueue<SlowStatement> slowStatements =
+            new PriorityQueue<>(Comparator.comparingLong(SlowStatement::getElapsedNanos));
+    // 보관 중인 느린 SQL 중 가장 빠른 실행 시간 -> 이보다 빠르면 락 없이 바로 버린다.
+    private volatile long slowFloorNanos;
+
+    public SqlStatistics(@Value("${datajpa.sql.slow-threshold:100ms}") Duration slowThreshold,
+                         @Value("${datajpa.sql.slow-top-n:20}") int slowTopN) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.slowTopN = Math.max(1, slowTopN);
+        this.slowFloorNanos = slowThresholdNanos;
+    }
+
+    public StatementStats statsOf(String sql) {
+        StatementStats stats = bySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String fingerprint = SqlFingerprint.of(sql);
+        stats = byFingerprint.computeIfAbsent(fingerprint, StatementStats::new);
+        if (bySql.size() < MAX_CACHED_SQL) {
+            bySql.putIfAbsent(sql, stats);
+        }
+        return stats;
+    }
+
+    // 파라미터는 느린 SQL일 때만 꺼낸다.
+    public StatementStats record(String sql, long elapsedNanos, long rows, Supplier<List<Object>> parameters) {
+        StatementStats stats = statsOf(sql);
+        stats.calls.increment();
+        stats.totalNanos.add(elapsedNanos);
+        stats.maxNanos.accumulate(elapsedNanos);
+        if (rows > 0) {
+            stats.rows.add(rows);
+        }
+        if (elapsedNanos >= slowFloorNanos) {
+            recordSlow(sql, elapsedNanos, parameters.get());
+        }
+        return stats;
+    }
+
+    private void recordSlow(String sql, long elapsedNanos, List<Object> parameters) {
+        SlowStatement slow = new SlowStatement(sql, parameters.stream().map(String::valueOf).collect(Collectors.toList()),
+                elapsedNanos, LocalDateTime.now(), Thread.currentThread().getName());
+        synchronized (slowStatements) {
+            slowStatements.add(slow);
+            if (slowStatements.size() > slowTopN) {
+                slowStatements.poll();
+            }
+            if (slowStatements.size() == slowTopN) {
+                slowFloorNanos = Math.max(slowThresholdNanos, slowStatements.peek().getElapsedNanos());
+            }
+        }
+    }
+
+    // orderBy: totalTime(기본), calls, maxTime, rows, meanTime
+    public List<StatementSummary> summaries(String orderBy, int limit) {
+        Comparator<StatementSummary> comparator;
+        switch (orderBy == null ? "totalTime" : orderBy) {
+            case "calls":
+                comparator = Comparator.comparingLong(StatementSummary::getCalls);
+                break;
+            case "maxTime":
+                comparator = Comparator.comparingDouble(StatementSummary::getMaxTimeMs);
+                break;
+            case "meanTime":
+                comparator = Comparator.comparingDouble(StatementSummary::getMeanTimeMs);
+                break;
+            case "rows":
+                comparator = Comparator.comparingLong(StatementSummary::getRows);
+                break;
+            case "totalTime":
+                comparator = Comparator.comparingDouble(StatementSummary::getTotalTimeMs);
+                break;
+            default:
+                throw new IllegalArgumentException("정렬할 수 없는 항목입니다. orderBy = " + orderBy);
+        }
+        return byFingerprint.values().stream()
+                .map(StatementStats::summary)
+                .sorted(comparator.reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    // 느린 순서
+    public List<SlowStatement> slowStatements() {
+        List<SlowStatement> result;
+        synchronized (slowStatements) {
+            result = new ArrayList<>(slowStatements);
+        }
+        result.sort(Comparator.comparingLong(SlowStatement::getElapsedNanos).reversed());
+        return result;
+    }
+
+    public void reset() {
+        bySql.clear();
+        byFingerprint.clear();
+        synchronized (slowStatements) {
+            slowStatements.clear();
+            slowFloorNanos = slowThresholdNanos;
+        }
+    }
+
+    public static final class StatementStats {
+
+        private final String fingerprint;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder rows = new LongAdder();
+
+        private StatementStats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        // 조회 결과 row 수는 실행이 끝난 뒤 ResultSet을 읽으면서 더한다.
+        public void addRows(long count) {
+            rows.add(count);
+        }
+
+        private StatementSummary summary() {
+            return new StatementSummary(fingerprint, calls.sum(), totalNanos.sum(), maxNanos.get(), rows.sum());
+        }
+    }
+
+    @Getter
+    public static class StatementSummary {
+
+        private final String fingerprint;
+        private final long calls;
+        private final double totalTimeMs;
+        private final double meanTimeMs;
+        private final double maxTimeMs;
+        private final long rows;
+
+        public StatementSummary(String fingerprint, long calls, long totalNanos, long maxNanos, long rows) {
+            this.fingerprint = fingerprint;
+            this.calls = calls;
+            this.totalTimeMs = toMillis(totalNanos);
+            this.meanTimeMs = calls == 0 ? 0 : toMillis(totalNanos / calls);
+            this.maxTimeMs = toMillis(maxNanos);
+            this.rows = rows;
+        }
+    }
+
+    @Getter
+    public static class SlowStatement {
+
+        private final String sql;
+        private final List<String> parameters;
+        private final long elapsedNanos;
+        private final double elapsedMs;
+        private final LocalDateTime executedAt;
+        private final String thread;
+
+        public SlowStatement(String sql, List<String> parameters, long elapsedNanos, LocalDateTime executedAt, String thread) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.elapsedNanos = elapsedNanos;
+            this.elapsedMs = toMillis(elapsedNanos);
+            this.executedAt = executedAt;
+            this.thread = thread;
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
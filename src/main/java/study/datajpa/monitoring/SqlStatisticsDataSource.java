@@ -0,0 +1,196 @@
+package study.datajpa.monitoring;
+
+import org.springframework.lang.Nullable;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+*   DataSource -> Connection -> Statement -> ResultSet 을 JDK 프록시로 감싸서 SQL 실행 시간과 row 수를 SqlStatistics에 기록한다.
+*   - execute* 호출 시간만 잰다. (ResultSet을 읽는 시간은 포함하지 않는다)
+*   - row 수: update는 반환값(배치는 합계), select는 ResultSet.next()가 true를 반환한 횟수
+*   - PreparedStatement에 바인딩한 파라미터는 느린 SQL을 보관할 때만 문자열로 바꾼다.
+*   나머지 메서드(unwrap 포함)는 원래 객체로 그대로 넘기므로 HikariCP 메트릭 등 DataSource를 unwrap 하는 기능도 그대로 동작한다.
+*   slowQueryExplainer를 주면 실행 시간이 threshold를 넘은 SQL을 넘겨서 실행 계획을 조회하게 한다. (SlowQueryExplainer)
+* */
+public final class SqlStatisticsDataSource {
+
+    private SqlStatisticsDataSource() {
+    }
+
+    public static DataSource wrap(DataSource dataSource, SqlStatistics statistics, @Nullable SlowQueryExplainer slowQueryExplainer) {
+        return proxy(DataSource.class, new DataSourceHandler(dataSource, statistics, slowQueryExplainer));
+    }
+
+    // 감싸기 전 DataSource -> 여기서 실행한 SQL은 기록하지 않는다.
+    public static DataSource unwrap(DataSource dataSource) {
+        if (Proxy.isProxyClass(dataSource.getClass())
+                && Proxy.getInvocationHandler(dataSource) instanceof DataSourceHandler) {
+            return ((DataSourceHandler) Proxy.getInvocationHandler(dataSource)).target;
+        }
+        return dataSource;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SqlStatisticsDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    // Hibernate는 Statement, ResultSet을 Map에 넣어서 관리하므로 equals/hashCode는 프록시 기준으로 동작해야 한다.
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class DataSourceHandler implements InvocationHandler {
+
+        private final DataSource target;
+        private final SqlStatistics statistics;
+        private final SlowQueryExplainer slowQueryExplainer;
+
+        private DataSourceHandler(DataSource target, SqlStatistics statistics, SlowQueryExplainer slowQueryExplainer) {
+            this.target = target;
+            this.statistics = statistics;
+            this.slowQueryExplainer = slowQueryExplainer;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlStatisticsDataSource.invoke(proxy, target, method, args);
+            return result instanceof Connection ? proxy(Connection.class, new ConnectionHandler((Connection) result, this)) : result;
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final DataSourceHandler dataSource;
+
+        private ConnectionHandler(Connection target, DataSourceHandler dataSource) {
+            this.target = target;
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlStatisticsDataSource.invoke(proxy, target, method, args);
+            if (!(result instanceof Statement)) {
+                return result;
+            }
+            // prepareStatement(sql, ...), prepareCall(sql, ...)는 SQL을 미리 받고, createStatement()는 execute(sql)에서 받는다.
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                    : result instanceof PreparedStatement ? PreparedStatement.class
+                    : Statement.class;
+            return proxy(type, new StatementHandler((Statement) result, sql, dataSource.statistics, dataSource.slowQueryExplainer));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private final SqlStatistics statistics;
+        private final SlowQueryExplainer slowQueryExplainer;
+        private final List<Object> parameters = new ArrayList<>();
+        private final Supplier<List<Object>> parameterSnapshot = () -> new ArrayList<>(parameters);
+        private SqlStatistics.StatementStats lastStats;
+
+        private StatementHandler(Statement target, String preparedSql, SqlStatistics statistics,
+                                 SlowQueryExplainer slowQueryExplainer) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.statistics = statistics;
+            this.slowQueryExplainer = slowQueryExplainer;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(proxy, method, args);
+            }
+
+            Object result = SqlStatisticsDataSource.invoke(proxy, target, method, args);
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bind((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                parameters.clear();
+            } else if ("getResultSet".equals(name) && result instanceof ResultSet && lastStats != null) {
+                return countRows((ResultSet) result, lastStats);
+            }
+            return result;
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            if (sql == null) {
+                return SqlStatisticsDataSource.invoke(proxy, target, method, args);
+            }
+
+            long start = System.nanoTime();
+            Object result = SqlStatisticsDataSource.invoke(proxy, target, method, args);
+            long elapsed = System.nanoTime() - start;
+
+            lastStats = statistics.record(sql, elapsed, updatedRows(result), parameterSnapshot);
+            if (slowQueryExplainer != null) {
+                slowQueryExplainer.capture(sql, elapsed, parameterSnapshot);
+            }
+            return result instanceof ResultSet ? countRows((ResultSet) result, lastStats) : result;
+        }
+
+        private void bind(int index, Object value) {
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+
+        private static long updatedRows(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return Math.max(((Number) result).longValue(), 0);
+            }
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    rows += Math.max(count, 0);
+                }
+            }
+            return rows;
+        }
+
+        private static ResultSet countRows(ResultSet resultSet, SqlStatistics.StatementStats stats) {
+            return proxy(ResultSet.class, (proxy, method, args) -> {
+                Object result = SqlStatisticsDataSource.invoke(proxy, resultSet, method, args);
+                if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) {
+                    stats.addRows(1);
+                }
+                return result;
+            });
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+*   GET    /actuator/sqlstats?orderBy=totalTime&limit=20 -> SQL 지문별 통계(정렬: totalTime, calls, meanTime, maxTime, rows)와 느린 SQL 목록
+*   DELETE /actuator/sqlstats                            -> 통계 초기화
+* */
+@Component
+@Endpoint(id = "sqlstats")
+@RequiredArgsConstructor
+public class SqlStatisticsEndpoint {
+
+    private final SqlStatistics sqlStatistics;
+
+    @ReadOperation
+    public Map<String, Object> statistics(@Nullable String orderBy, @Nullable Integer limit) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statements", sqlStatistics.summaries(orderBy, limit != null ? limit : 20));
+        result.put("slowStatements", sqlStatistics.slowStatements());
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sqlStatistics.reset();
+    }
+}
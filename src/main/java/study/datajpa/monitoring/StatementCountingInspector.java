@@ -0,0 +1,44 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+*   Hibernate가 SQL을 준비할 때마다 호출된다 -> 현재 스레드에 열린 StatementScope와 현재 트랜잭션 범위에 기록한다.
+* */
+@Component
+@RequiredArgsConstructor
+public class StatementCountingInspector implements StatementInspector {
+
+    private final StatementMetrics statementMetrics;
+
+    @Override
+    public String inspect(String sql) {
+        StatementScope.recordOnCurrentThread(sql);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionScope().record(sql);
+        }
+        return sql;
+    }
+
+    private StatementScope transactionScope() {
+        StatementScope scope = (StatementScope) TransactionSynchronizationManager.getResource(this);
+        if (scope == null) {
+            String name = TransactionSynchronizationManager.getCurrentTransactionName();
+            StatementScope newScope = new StatementScope(name != null ? name : "UNKNOWN");
+            TransactionSynchronizationManager.bindResource(this, newScope);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(StatementCountingInspector.this);
+                    statementMetrics.report("transaction", newScope.getName(), newScope);
+                }
+            });
+            scope = newScope;
+        }
+        return scope;
+    }
+}
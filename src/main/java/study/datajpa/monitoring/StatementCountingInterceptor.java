@@ -0,0 +1,50 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/*
+*   HTTP 요청 하나에서 실행된 SQL 수를 센다 -> OSIV로 컨트롤러에서 지연 로딩한 SQL까지 포함된다.
+* */
+@Component
+@RequiredArgsConstructor
+public class StatementCountingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SCOPE_ATTRIBUTE = StatementCountingInterceptor.class.getName() + ".scope";
+
+    private final StatementMetrics statementMetrics;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(SCOPE_ATTRIBUTE, StatementScope.open("request"));
+        return true;
+    }
+
+    // 비동기 처리(StreamingResponseBody 등)가 시작되면 요청 스레드가 반납되므로 여기서 범위를 닫는다.
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        finish(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        finish(request);
+    }
+
+    private void finish(HttpServletRequest request) {
+        StatementScope scope = (StatementScope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope == null) {
+            return;
+        }
+        request.removeAttribute(SCOPE_ATTRIBUTE);
+        scope.close();
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        statementMetrics.report("request", pattern != null ? pattern.toString() : "UNKNOWN", scope);
+    }
+}
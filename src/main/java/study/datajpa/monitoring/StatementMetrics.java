@@ -0,0 +1,58 @@
+package study.datajpa.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/*
+*   범위(요청, 트랜잭션)가 끝날 때 SQL 실행 횟수를 메트릭으로 기록하고, 같은 SQL이 반복되면 N + 1로 보고 경고를 남긴다.
+*   -> /actuator/metrics/sql.statements, /actuator/metrics/sql.statements.repeated
+* */
+@Slf4j
+@Component
+public class StatementMetrics {
+
+    // MeterRegistry는 EntityManagerFactory보다 늦게 초기화될 수 있으므로 처음 기록할 때 꺼내온다.
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final int repeatedThreshold;
+
+    public StatementMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                            @Value("${datajpa.sql.repeated-statement-threshold:3}") int repeatedThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.repeatedThreshold = repeatedThreshold;
+    }
+
+    public void report(String scopeType, String name, StatementScope scope) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            DistributionSummary.builder("sql.statements")
+                    .description("SQL statements per " + scopeType)
+                    .tag("scope", scopeType)
+                    .tag("name", name)
+                    .register(registry)
+                    .record(scope.getCount());
+        }
+
+        Map<String, Integer> repeated = scope.getRepeatedStatements(repeatedThreshold);
+        if (repeated.isEmpty()) {
+            return;
+        }
+
+        if (registry != null) {
+            Counter.builder("sql.statements.repeated")
+                    .description("Scopes that executed the same SQL repeatedly (N + 1 suspects)")
+                    .tag("scope", scopeType)
+                    .tag("name", name)
+                    .register(registry)
+                    .increment();
+        }
+        repeated.forEach((sql, count) ->
+                log.warn("N + 1 의심: {} [{}] 에서 같은 SQL이 {}번 실행되었습니다. sql = {}", scopeType, name, count, sql));
+    }
+}
@@ -0,0 +1,105 @@
+package study.datajpa.monitoring;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+*   SQL 실행 횟수를 세는 범위 (HTTP 요청, 트랜잭션, 테스트 코드 블록 등)
+*   open()으로 연 범위는 현재 스레드에 쌓이고, 닫기 전까지 실행된 SQL은 열려있는 모든 범위에 기록된다.
+*   SQL은 바인딩 파라미터가 ?로 남아있는 상태로 기록되므로, 같은 SQL이 여러번 나오면 파라미터만 다른 반복 조회(N + 1)다.
+*   영속성 컨텍스트에 로딩된 엔티티 수도 같이 센다. (EntityLoadCountingListener)
+* */
+public class StatementScope implements AutoCloseable {
+
+    private static final ThreadLocal<Deque<StatementScope>> OPENED = new ThreadLocal<>();
+
+    private final String name;
+    private final Map<String, Integer> statements = new LinkedHashMap<>();
+    private int count;
+    private int loadedEntities;
+    private boolean closed;
+
+    public StatementScope(String name) {
+        this.name = name;
+    }
+
+    public static StatementScope open(String name) {
+        Deque<StatementScope> scopes = OPENED.get();
+        if (scopes == null) {
+            scopes = new ArrayDeque<>();
+            OPENED.set(scopes);
+        }
+
+        StatementScope scope = new StatementScope(name);
+        scopes.push(scope);
+        return scope;
+    }
+
+    static void recordOnCurrentThread(String sql) {
+        Deque<StatementScope> scopes = OPENED.get();
+        if (scopes == null) {
+            return;
+        }
+        for (StatementScope scope : scopes) {
+            scope.record(sql);
+        }
+    }
+
+    static void recordLoadOnCurrentThread() {
+        Deque<StatementScope> scopes = OPENED.get();
+        if (scopes == null) {
+            return;
+        }
+        for (StatementScope scope : scopes) {
+            scope.loadedEntities++;
+        }
+    }
+
+    public void record(String sql) {
+        count++;
+        statements.merge(sql, 1, Integer::sum);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getLoadedEntities() {
+        return loadedEntities;
+    }
+
+    public Map<String, Integer> getStatements() {
+        return Collections.unmodifiableMap(statements);
+    }
+
+    // threshold번 이상 실행된 SQL -> N + 1 의심
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        return statements.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        Deque<StatementScope> scopes = OPENED.get();
+        if (scopes != null) {
+            scopes.remove(this);
+            if (scopes.isEmpty()) {
+                OPENED.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package study.datajpa.projection;
+
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.FieldAccessor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
+
+/*
+*   인터페이스 프로젝션을 JDK 프록시 대신 실제 클래스로 만들어주는 ProjectionFactory
+*   - 프로젝션 인터페이스마다 getter가 필드를 그대로 반환하는 클래스를 처음 한번만 만든다. (ByteBuddy)
+*   - 값은 프로젝션을 만들 때 한번만 계산해서 필드에 넣어두므로, getter 호출에는 프록시/리플렉션/SpEL 평가가 없다.
+*   - @Value(SpEL)는 한번만 파싱하고 컴파일 모드(MIXED)로 평가하므로 반복해서 호출되면 바이트코드로 컴파일된다.
+*   - 파라미터가 있는 메서드처럼 클래스로 만들 수 없는 인터페이스는 기존 프록시 방식으로 처리한다.
+*   - 컬렉션은 ArrayList/LinkedHashSet으로만 다시 만들므로, SortedSet/Queue처럼 둘 다 대입할 수 없는 타입을 반환하는 인터페이스도 프록시로 처리한다.
+*   주의) 프록시는 getter를 호출할 때 값을 읽지만, 이 방식은 생성할 때 전부 읽는다. (원본이 엔티티면 호출하지 않을 getter의 지연 로딩도 일어난다)
+*   그래서 기본값은 프록시 방식이고 datajpa.projection.compiled=true 일 때만 사용한다. (ProjectionConfig)
+* */
+@Slf4j
+public class CompiledProjectionFactory extends SpelAwareProxyProjectionFactory {
+
+    // 만든 클래스는 인터페이스의 클래스로더에 정의되므로 컨텍스트가 여러개 떠도 한번만 만들어야 한다.
+    private static final ConcurrentMap<Class<?>, Optional<ProjectionClass>> CLASSES = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, Optional<ProjectionPlan>> plans = new ConcurrentHashMap<>();
+
+    private final SpelExpressionParser parser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, CompiledProjectionFactory.class.getClassLoader()));
+    private final StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+    private final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+
+    public CompiledProjectionFactory() {
+        evaluationContext.addPropertyAccessor(new MapAccessor());
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
+    }
+
+    @Override
+    public <T> T createProjection(Class<T> projectionType, Object source) {
+        if (!projectionType.isInterface() || projectionType.isInstance(source)) {
+            return super.createProjection(projectionType, source);
+        }
+
+        Optional<ProjectionPlan> plan = plans.computeIfAbsent(projectionType, this::plan);
+        if (plan.isEmpty()) {
+            return super.createProjection(projectionType, source);
+        }
+        return projectionType.cast(plan.get().create(source));
+    }
+
+    private Optional<ProjectionPlan> plan(Class<?> projectionType) {
+        Map<String, Method> getters = getters(projectionType);
+        if (getters == null) {
+            return Optional.empty();
+        }
+
+        return CLASSES.computeIfAbsent(projectionType, type -> define(type, getters))
+                .map(projectionClass -> {
+                    List<Property> properties = new ArrayList<>();
+                    getters.forEach((name, getter) -> properties.add(property(name, getter, projectionClass.setters.get(name))));
+                    return new ProjectionPlan(projectionClass.constructor, properties);
+                });
+    }
+
+    private Property property(String name, Method getter, MethodHandle setter) {
+        // @Value가 없으면 원본 객체의 getter 호출도 컴파일되는 SpEL(target.name)로 처리한다.
+        Value value = getter.getAnnotation(Value.class);
+        Expression expression = value != null
+                ? parser.parseExpression(value.value(), ParserContext.TEMPLATE_EXPRESSION)
+                : parser.parseExpression("target." + name);
+
+        Class<?> type = getter.getReturnType();
+        Class<?> elementType = Collection.class.isAssignableFrom(type)
+                ? ResolvableType.forMethodReturnType(getter).asCollection().resolveGeneric(0)
+                : null;
+        return new Property(name, expression, value != null, type, elementType, setter);
+    }
+
+    // 프로퍼티 이름 -> getter, 클래스로 만들 수 없는 메서드가 있으면 null
+    private static Map<String, Method> getters(Class<?> projectionType) {
+        if (projectionType.getName().startsWith("java.")) {
+            return null;
+        }
+
+        Map<String, Method> getters = new LinkedHashMap<>();
+        for (Method method : projectionType.getMethods()) {
+            if (method.isDefault() || Modifier.isStatic(method.getModifiers()) || ReflectionUtils.isObjectMethod(method)) {
+                continue;
+            }
+            PropertyDescriptor descriptor = BeanUtils.findPropertyForMethod(method);
+            if (method.getParameterCount() != 0 || method.getReturnType() == void.class || descriptor == null) {
+                return null;
+            }
+            if (!isSupportedCollection(method.getReturnType())) {
+                return null;
+            }
+            getters.putIfAbsent(descriptor.getName(), method);
+        }
+        return getters;
+    }
+
+    // adapt()가 만드는 ArrayList, LinkedHashSet 중 하나를 대입할 수 있어야 한다.
+    private static boolean isSupportedCollection(Class<?> type) {
+        return !Collection.class.isAssignableFrom(type)
+                || type.isAssignableFrom(ArrayList.class)
+                || type.isAssignableFrom(LinkedHashSet.class);
+    }
+
+    private static Optional<ProjectionClass> define(Class<?> projectionType, Map<String, Method> getters) {
+        try {
+            DynamicType.Builder<Object> builder = new ByteBuddy()
+                    .subclass(Object.class)
+                    .implement(projectionType)
+                    .name(projectionType.getName() + "$Compiled");
+            for (Map.Entry<String, Method> getter : getters.entrySet()) {
+                builder = builder
+                        .defineField(getter.getKey(), getter.getValue().getReturnType(), Visibility.PUBLIC)
+                        .method(named(getter.getValue().getName()).and(takesArguments(0)))
+                        .intercept(FieldAccessor.ofField(getter.getKey()));
+            }
+
+            // 인터페이스와 같은 패키지에 정의해야 package-private 인터페이스도 구현할 수 있다.
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(projectionType, MethodHandles.lookup());
+            Class<?> compiled = builder.withToString()
+                    .make()
+                    .load(projectionType.getClassLoader(), ClassLoadingStrategy.UsingLookup.of(lookup))
+                    .getLoaded();
+
+            MethodHandle constructor = lookup.findConstructor(compiled, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            Map<String, MethodHandle> setters = new LinkedHashMap<>();
+            for (Map.Entry<String, Method> getter : getters.entrySet()) {
+                setters.put(getter.getKey(), lookup.findSetter(compiled, getter.getKey(), getter.getValue().getReturnType())
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class)));
+            }
+            return Optional.of(new ProjectionClass(constructor, setters));
+        } catch (Exception | LinkageError e) {
+            log.warn("프로젝션 클래스를 만들 수 없어서 프록시를 사용합니다. type = {}", projectionType.getName(), e);
+            return Optional.empty();
+        }
+    }
+
+    private Object read(Property property, Object source) {
+        Object value = !property.spel && source instanceof Map
+                ? ((Map<?, ?>) source).get(property.name)
+                : property.expression.getValue(evaluationContext, new Root(source));
+        return adapt(value, property);
+    }
+
+    private Object adapt(Object value, Property property) {
+        if (value == null) {
+            return null;
+        }
+        Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(property.type);
+        if (property.elementType != null && value instanceof Collection && property.elementType.isInterface()) {
+            Collection<Object> elements = type.isAssignableFrom(ArrayList.class) ? new ArrayList<>() : new LinkedHashSet<>();
+            for (Object element : (Collection<?>) value) {
+                elements.add(element == null ? null : createProjection(property.elementType, element));
+            }
+            return elements;
+        }
+        if (type.isInstance(value)) {
+            return value;
+        }
+        if (type.isInterface() && !type.getName().startsWith("java.")) {
+            return createProjection(type, value);
+        }
+        return conversionService.convert(value, type);
+    }
+
+    // SpEL의 루트 객체 -> 기존 프록시와 같이 #{target.xxx}로 원본에 접근한다. (컴파일하려면 public 이어야 한다)
+    public static final class Root {
+
+        private final Object target;
+
+        private Root(Object target) {
+            this.target = target;
+        }
+
+        public Object getTarget() {
+            return target;
+        }
+    }
+
+    private static final class ProjectionClass {
+        private final MethodHandle constructor;
+        private final Map<String, MethodHandle> setters;
+
+        private ProjectionClass(MethodHandle constructor, Map<String, MethodHandle> setters) {
+            this.constructor = constructor;
+            this.setters = setters;
+        }
+    }
+
+    private static final class Property {
+        private final String name;
+        private final Expression expression;
+        private final boolean spel;
+        private final Class<?> type;
+        private final Class<?> elementType;
+        private final MethodHandle setter;
+
+        private Property(String name, Expression expression, boolean spel,
+                         Class<?> type, Class<?> elementType, MethodHandle setter) {
+            this.name = name;
+            this.expression = expression;
+            this.spel = spel;
+            this.type = type;
+            this.elementType = elementType;
+            this.setter = setter;
+        }
+    }
+
+    private final class ProjectionPlan {
+        private final MethodHandle constructor;
+        private final List<Property> properties;
+
+        private ProjectionPlan(MethodHandle constructor, List<Property> properties) {
+            this.constructor = constructor;
+            this.properties = properties;
+        }
+
+        private Object create(Object source) {
+            try {
+                Object projection = (Object) constructor.invokeExact();
+                for (Property property : properties) {
+                    Object value = read(property, source);
+                    // 기본 타입 필드는 null을 넣을 수 없으므로 기본값을 그대로 둔다.
+                    if (value != null || !property.type.isPrimitive()) {
+                        property.setter.invokeExact(projection, value);
+                    }
+                }
+                return projection;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
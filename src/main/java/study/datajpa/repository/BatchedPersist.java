@@ -0,0 +1,41 @@
+package study.datajpa.repository;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+
+/*
+*   대량 등록 -> batchSize마다 flush/clear 해서 insert를 JDBC 배치로 묶어 보내고, 영속성 컨텍스트가 계속 커지지 않도록 한다.
+*   세션의 JDBC 배치 크기를 batchSize로 바꿨다가 끝나면 되돌린다.
+*   clear 이후에는 저장한 엔티티가 준영속 상태가 되므로 저장한 건수만 돌려준다. (트랜잭션 안에서 호출해야 한다)
+* */
+final class BatchedPersist {
+
+    private BatchedPersist() {
+    }
+
+    static int persistAll(EntityManager em, Iterable<?> entities, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize는 1 이상이어야 합니다. batchSize = " + batchSize);
+        }
+
+        Session session = em.unwrap(Session.class);
+        Integer defaultBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+        try {
+            int count = 0;
+            for (Object entity : entities) {
+                em.persist(entity);
+                if (++count % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+            return count;
+        } finally {
+            session.setJdbcBatchSize(defaultBatchSize);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.BulkUpdateCheckpoint;
+
+import java.util.List;
+
+public interface BulkUpdateCheckpointRepository extends JpaRepository<BulkUpdateCheckpoint, Long> {
+
+    @Query("select c from BulkUpdateCheckpoint c where c.jobName = :jobName order by c.chunkStart")
+    List<BulkUpdateCheckpoint> findByJobName(@Param("jobName") String jobName);
+
+    // 파생 delete 쿼리는 엔티티를 조회한 뒤 한건씩 지우므로 벌크 연산으로 지운다.
+    @Transactional
+    @Modifying
+    @Query("delete from BulkUpdateCheckpoint c where c.jobName = :jobName")
+    int deleteByJobName(@Param("jobName") String jobName);
+}
@@ -0,0 +1,141 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+*   카운트 쿼리 결과 캐시 -> 키는 (테이블, 쿼리, 파라미터)이고 TTL이 지나거나 해당 테이블에 쓰기가 발생하면 버린다.
+*   쓰기 감지는 TableWriteInspector가 Hibernate가 실행하는 insert/update/delete SQL을 보고 invalidate()를 호출해준다.
+* */
+@Slf4j
+@Component
+public class CountQueryCache {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlNanos;
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    // 카운트를 계산하는 도중에 무효화가 일어나면 오래된 값을 캐시에 넣지 않도록 테이블별 세대 번호를 관리한다.
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public CountQueryCache(JdbcTemplate jdbcTemplate,
+                           @Value("${datajpa.count-cache.ttl:30s}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public long count(String table, String query, List<?> parameters,
+                      CountStrategy strategy, LongSupplier exactCount) {
+        switch (strategy) {
+            case EXACT:
+                return exactCount.getAsLong();
+            case ESTIMATED:
+                Long estimated = estimate(table);
+                if (estimated != null) {
+                    return estimated;
+                }
+                // 추정치를 구할 수 없으면 캐시된 정확한 값을 사용한다.
+                return cached(table, query, parameters, exactCount);
+            case CACHED:
+            default:
+                return cached(table, query, parameters, exactCount);
+        }
+    }
+
+    public void invalidate(String table) {
+        String normalized = normalize(table);
+        generation(normalized).incrementAndGet();
+        entries.keySet().removeIf(key -> key.table.equals(normalized));
+    }
+
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        entries.clear();
+    }
+
+    private long cached(String table, String query, List<?> parameters, LongSupplier exactCount) {
+        Key key = new Key(normalize(table), query, parameters);
+        long now = System.nanoTime();
+
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.createdAt < ttlNanos) {
+            return entry.count;
+        }
+
+        long generation = generation(key.table).get();
+        long count = exactCount.getAsLong();
+        if (generation(key.table).get() == generation) {
+            entries.put(key, new Entry(count, now));
+        }
+        return count;
+    }
+
+    private Long estimate(String table) {
+        try {
+            return jdbcTemplate.queryForObject(
+                    "select max(row_count_estimate) from information_schema.tables where lower(table_name) = ?",
+                    Long.class, normalize(table));
+        } catch (DataAccessException e) {
+            log.debug("row count estimate is not available. table = {}", table, e);
+            return null;
+        }
+    }
+
+    private AtomicLong generation(String table) {
+        return generations.computeIfAbsent(table, t -> new AtomicLong());
+    }
+
+    private static String normalize(String table) {
+        return table.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Key {
+        private final String table;
+        private final String query;
+        private final List<?> parameters;
+
+        private Key(String table, String query, List<?> parameters) {
+            this.table = table;
+            this.query = query;
+            // 파라미터에 null이 들어올 수 있으므로 List.copyOf 대신 복사한다.
+            this.parameters = new ArrayList<>(parameters);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return table.equals(other.table) && query.equals(other.query) && parameters.equals(other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(table, query, parameters);
+        }
+    }
+
+    private static final class Entry {
+        private final long count;
+        private final long createdAt;
+
+        private Entry(long count, long createdAt) {
+            this.count = count;
+            this.createdAt = createdAt;
+        }
+    }
+}
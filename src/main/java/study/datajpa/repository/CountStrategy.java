@@ -0,0 +1,16 @@
+package study.datajpa.repository;
+
+/*
+*   Page 반환 메서드에서 TotalCount를 어떻게 구할지 선택한다.
+* */
+public enum CountStrategy {
+
+    // 매 요청마다 카운트 쿼리를 실행한다 (Spring Data JPA 기본 동작)
+    EXACT,
+
+    // 쿼리 + 파라미터 단위로 카운트 결과를 TTL 동안 캐시하고, 테이블에 쓰기가 발생하면 무효화한다.
+    CACHED,
+
+    // 데이터베이스 통계(추정 row 수)를 사용한다 -> 조건 없는 테이블 전체 카운트에만 의미가 있다.
+    ESTIMATED
+}
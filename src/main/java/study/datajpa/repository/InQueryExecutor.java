@@ -0,0 +1,114 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.AsyncConfig;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/*
+*   where ... in (:values) 쿼리를 SQL 종류가 몇개 안되도록 실행한다.
+*   - 파라미터 수를 2의 제곱수(1, 2, 4, 8 ...)로 맞춘다. (마지막 값을 반복) -> 컬렉션 크기마다 SQL이 달라져서 Hibernate/DB 실행 계획 캐시를 채우지 않는다.
+*   - max-chunk-size 보다 많으면 나눠서 조회하고 결과를 합친다. (DB마다 파라미터 수 제한이 있다. Oracle 1000, SQL Server 2100)
+*   - 나눈 조회는 호출한 쪽에 영속성 컨텍스트가 없으면(트랜잭션, OSIV 밖) repositoryExecutor에서 동시에 실행한다.
+*     영속성 컨텍스트가 있으면 조회한 엔티티가 그 영속성 컨텍스트에 있어야 하므로 같은 스레드에서 차례대로 실행한다.
+*   중복 값과 null은 빼고 조회한다.
+* */
+@Component
+public class InQueryExecutor {
+
+    private final EntityManagerFactory emf;
+    private final ExecutorService executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxChunkSize;
+
+    public InQueryExecutor(EntityManagerFactory emf,
+                           @Qualifier(AsyncConfig.REPOSITORY_EXECUTOR) ExecutorService executor,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${datajpa.in-query.max-chunk-size:1024}") int maxChunkSize) {
+        this.emf = emf;
+        this.executor = executor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxChunkSize = Math.max(1, maxChunkSize);
+    }
+
+    // query는 파라미터로 받은 값 목록을 in 절에 바인딩해서 조회한다.
+    public <V, T> List<T> execute(Iterable<V> values, Function<List<V>, List<T>> query) {
+        List<V> distinct = distinct(values);
+        if (distinct.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<List<V>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += maxChunkSize) {
+            chunks.add(pad(distinct.subList(from, Math.min(from + maxChunkSize, distinct.size()))));
+        }
+
+        if (chunks.size() == 1 || TransactionSynchronizationManager.hasResource(emf)) {
+            List<T> result = new ArrayList<>();
+            for (List<V> chunk : chunks) {
+                result.addAll(query.apply(chunk));
+            }
+            return result;
+        }
+        return executeInParallel(chunks, query);
+    }
+
+    private <V, T> List<T> executeInParallel(List<List<V>> chunks, Function<List<V>, List<T>> query) {
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (List<V> chunk : chunks) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> readOnlyTransaction.execute(status -> query.apply(chunk)), executor));
+        }
+
+        List<T> result = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<T>> future : futures) {
+                result.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    private static <V> List<V> distinct(Iterable<V> values) {
+        Set<V> distinct = new LinkedHashSet<>();
+        for (V value : values) {
+            if (value != null) {
+                distinct.add(value);
+            }
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    // 2의 제곱수가 될 때까지 마지막 값을 반복한다. (max-chunk-size를 넘지 않는다)
+    private <V> List<V> pad(List<V> chunk) {
+        int size = Math.min(Integer.highestOneBit(chunk.size() * 2 - 1), maxChunkSize);
+        List<V> padded = new ArrayList<>(size);
+        padded.addAll(chunk);
+        V last = chunk.get(chunk.size() - 1);
+        while (padded.size() < size) {
+            padded.add(last);
+        }
+        return padded;
+    }
+}
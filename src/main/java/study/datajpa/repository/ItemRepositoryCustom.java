@@ -0,0 +1,12 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    // 이미 존재하는 id는 무시하고 없는 id만 insert 한다 -> 실제로 insert 된 건수를 반환한다.
+    // 드라이버가 배치 결과로 SUCCESS_NO_INFO를 주면 건수를 알 수 없으므로 IllegalStateException이 발생하고 롤백된다.
+    int insertIgnoreAll(Collection<Item> items);
+}
@@ -0,0 +1,58 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.auditing.AuditClock;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    // H2 MERGE ... USING -> 키가 없을 때만 insert 하므로 save()처럼 isNew() 판단이 틀려도 merge(select 후 insert)가 일어나지 않는다.
+    private static final String INSERT_IGNORE_SQL =
+            "merge into item t " +
+            "using (select cast(? as varchar(255)) as id, cast(? as timestamp) as created_date) s " +
+            "on t.id = s.id " +
+            "when not matched then insert (id, created_date) values (s.id, s.created_date)";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditClock auditClock;
+
+    @Override
+    @Transactional
+    public int insertIgnoreAll(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+
+        // JPA로 저장하고 아직 flush 하지 않은 Item이 있으면 먼저 DB에 반영해야 중복 insert가 일어나지 않는다.
+        em.flush();
+
+        // JDBC로 직접 저장하기 때문에 @CreatedDate가 동작하지 않는다 -> 배치 전체에 같은 등록일을 넣어준다.
+        // 영속성 컨텍스트를 거치지 않으므로 넘겨준 Item 객체의 createdDate는 그대로 null이다.
+        Timestamp createdDate = Timestamp.valueOf(auditClock.now());
+        int[][] results = jdbcTemplate.batchUpdate(INSERT_IGNORE_SQL, items, items.size(), (ps, item) -> {
+            ps.setString(1, item.getId());
+            ps.setTimestamp(2, createdDate);
+        });
+
+        // SUCCESS_NO_INFO(-2)는 실행은 됐지만 insert 여부를 알 수 없다 -> 무시된 것으로 세면 건수가 틀리므로 실패시킨다. (트랜잭션 롤백)
+        int inserted = 0;
+        for (int[] batch : results) {
+            for (int count : batch) {
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    throw new IllegalStateException("JDBC 드라이버가 insert 건수를 알려주지 않아서(SUCCESS_NO_INFO) insert 된 건수를 알 수 없습니다.");
+                }
+                inserted += Math.max(count, 0);
+            }
+        }
+        return inserted;
+    }
+}
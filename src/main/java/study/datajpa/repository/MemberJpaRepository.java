@@ -1,6 +1,7 @@
 package study.datajpa.repository;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
@@ -19,6 +20,12 @@ public class MemberJpaRepository {
         return member;
     }
 
+    // 대량 등록 -> batchSize마다 flush/clear 한다. (BatchedPersist)
+    @Transactional
+    public int saveAllBatched(Iterable<Member> members, int batchSize) {
+        return BatchedPersist.persistAll(em, members, batchSize);
+    }
+
     public void delete(Member member) {
         em.remove(member);
     }
@@ -73,7 +80,7 @@ public class MemberJpaRepository {
 
     // 벌크성 수정 쿼리
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+        return em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate();
     }
@@ -5,14 +5,16 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
+import study.datajpa.config.AsyncConfig;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
@@ -35,14 +37,17 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select m from Member m where m.username = :username and m.age = :age")
     List<Member> findUser(@Param("username") String username, @Param("age") int age);
 
+    // findByUsername(Named Query), findListByUsername(쿼리 메서드)와 같은 조건의 @Query -> 조회 방식별 비교용 (QueryStyleBenchmark)
+    @Query("select m from Member m where m.username = :username")
+    List<Member> findUserByUsername(@Param("username") String username);
+
     @Query("select m.username from Member m")
     List<String> findUsernameList();
 
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
-    @Query("select m from Member m where m.username in :names")
-    List<Member> findByNames(@Param("names") Collection<String> names);
+    // findByNames(Collection<String> names)는 in 절 파라미터 수를 맞추고 나눠서 조회하기 위해 MemberRepositoryCustom으로 옮겼다. (InQueryExecutor)
 
     List<Member> findListByUsername(String name); // 컬렉션
 
@@ -63,10 +68,15 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select m from Member m where m.age = :age")
     List<Member> findByAge3(@Param("age") int age, Pageable pageable);
 
+    // 키셋(Seek) 페이징 -> offset 없이 마지막으로 조회한 id 다음부터 조회하기 때문에 페이지가 깊어져도 PK 인덱스로 바로 찾아간다.
+    // Pageable은 항상 PageRequest.of(0, size, Sort.by("id"))로 넘겨야 하고, Slice라서 카운트 쿼리도 나가지 않는다.
+    Slice<Member> findByIdGreaterThan(Long id, Pageable pageable);
+
     // @Modifying 애너테이션을 붙여줘야 EntityManager의 executeUpdate를 실행한다.
     // clearAutomatically 옵션을 true로 설정하면, 영속성컨텍스트를 비우지 않아도 자동으로 비워진다.
     @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    // 벌크 연산은 엔티티를 거치지 않으므로 version도 직접 올려줘야 동시에 수정중인 트랜잭션이 충돌을 감지한다.
+    @Query("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     @Query("select m from Member m left join fetch m.team")
@@ -98,8 +108,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
     List<UsernameOnlyDto> findClassProjectionsByUsername(@Param("username") String username);
 
-    // 제네릭을 활용한 동적 프로젝션도 활용이 가능하다.
-    <T> List<T> findProjectionsByUsername(@Param("username") String username, Class<T> type);
+    // 제네릭을 활용한 동적 프로젝션도 활용이 가능하다. -> 중첩 프로젝션의 컬럼을 줄이기 위해 MemberRepositoryCustom으로 옮겼다.
 
     // Native Query 사용이 가능하다. nativeQuery 옵션을 주면 사용가능하다.
     @Query(value = "select * from member where username = ?", nativeQuery = true)
@@ -112,4 +121,14 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
             nativeQuery = true)
     Page<MemberProjection> findByNativeProjection(Pageable pageable);
 
+    // @Async를 붙이면 repositoryExecutor에서 실행되고 CompletableFuture로 결과를 받는다. (@EnableAsync 필요 -> AsyncConfig)
+    // 다른 스레드에서 실행되므로 호출한 쪽의 트랜잭션/영속성 컨텍스트를 공유하지 않는다 -> 지연 로딩이 필요없는 DTO로 조회한다.
+    @Async(AsyncConfig.REPOSITORY_EXECUTOR)
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t where m.username = :username")
+    CompletableFuture<List<MemberDto>> findAsyncMemberDtoByUsername(@Param("username") String username);
+
+    @Async(AsyncConfig.REPOSITORY_EXECUTOR)
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t where m.id = :id")
+    CompletableFuture<MemberDto> findAsyncMemberDtoById(@Param("id") Long id); // 결과가 없으면 null로 완료된다.
+
 }
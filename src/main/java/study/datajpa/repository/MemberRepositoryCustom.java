@@ -1,9 +1,40 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    // MemberRepository.findByAge와 같은 쿼리지만 TotalCount를 구하는 방법을 선택할 수 있다.
+    Page<Member> findByAge(int age, Pageable pageable, CountStrategy countStrategy);
+
+    // MemberRepository.findByNativeProjection과 같은 컬럼(MemberProjection)을 조회하고 TotalCount를 구하는 방법을 선택할 수 있다.
+    // 쿼리는 다르다 -> team을 team_id로 조인하고(on 조건이 없으면 모든 팀과 조인된다), member_id 순으로 정렬해서 페이지마다 결과가 겹치지 않는다.
+    Page<MemberProjection> findByNativeProjection(Pageable pageable, CountStrategy countStrategy);
+
+    // 전체 회원을 List로 만들지 않고 fetchSize 단위로 읽어오는 Stream -> 트랜잭션 안에서 사용하고 반드시 close 해야한다.
+    Stream<MemberDto> streamMemberDto(int fetchSize);
+
+    // 한 페이지의 회원을 DTO로 한 row씩 읽는 Stream (정렬이 없으면 id 순서) -> 트랜잭션 안에서 사용하고 반드시 close 해야한다.
+    // Slice처럼 다음 페이지가 있는지 알아야 하면 extraRows = 1 로 pageSize보다 하나 더 읽는다.
+    Stream<MemberDto> streamMemberDto(Pageable pageable, int extraRows);
+
+    // 제네릭을 활용한 동적 프로젝션 -> Closed Projection이면 중첩 프로젝션까지 선언한 컬럼만 조회한다. (ProjectionSelect)
+    <T> List<T> findProjectionsByUsername(String username, Class<T> type);
+
+    // MemberRepository.bulkAgePlus와 같지만 수정자/수정일(lastModifiedBy, lastModifiedDate)도 같은 update 문에서 갱신한다.
+    int bulkAgePlusAudited(int age);
+
+    // username in (:names) -> 파라미터 수를 2의 제곱수로 맞추고, 많으면 나눠서 조회한다. (InQueryExecutor)
+    List<Member> findByNames(Collection<String> names);
+
+    // JpaRepository.findAllById 대신 호출된다. (커스텀 구현이 기본 구현보다 우선한다)
+    List<Member> findAllById(Iterable<Long> ids);
 }
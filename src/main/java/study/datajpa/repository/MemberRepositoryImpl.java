@@ -1,16 +1,58 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import study.datajpa.auditing.AuditClock;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 // Repository 클래스 이름 + Impl 네이밍 규칙을 지켜줘야 사용이 가능하다.
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final String FIND_BY_AGE_QUERY = "select m from Member m left join m.team t";
+    private static final String FIND_BY_AGE_COUNT_QUERY = "select count(m.username) from Member m";
+
+    private static final String MEMBER_DTO_QUERY = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) " +
+            "from Member m left join m.team t";
+
+    private static final String NATIVE_PROJECTION_QUERY = "select m.member_id as id, m.username, t.name as teamName " +
+            "from member m left join team t on m.team_id = t.team_id order by m.member_id";
+    private static final String NATIVE_PROJECTION_COUNT_QUERY = "select count(*) from member";
+
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
     private final EntityManager em;
+    private final CountQueryCache countQueryCache;
+    private final ProjectionFactory projectionFactory;
+    private final AuditorAware<String> auditorAware;
+    private final InQueryExecutor inQueryExecutor;
+    private final AuditClock auditClock;
 
     @Override
     public List<Member> findMemberCustom() {
@@ -18,4 +60,135 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .getResultList();
     }
 
+    @Override
+    public Page<Member> findByAge(int age, Pageable pageable, CountStrategy countStrategy) {
+        List<Member> content = em.createQuery(QueryUtils.applySorting(FIND_BY_AGE_QUERY, pageable.getSort(), "m"), Member.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        // 첫 페이지에서 content가 pageSize보다 적거나 마지막 페이지인 경우에는 카운트 쿼리 자체를 생략한다.
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countQueryCache.count("member", FIND_BY_AGE_COUNT_QUERY, Collections.emptyList(), countStrategy,
+                        () -> em.createQuery(FIND_BY_AGE_COUNT_QUERY, Long.class).getSingleResult()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Page<MemberProjection> findByNativeProjection(Pageable pageable, CountStrategy countStrategy) {
+        List<Object[]> rows = em.createNativeQuery(NATIVE_PROJECTION_QUERY)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        // Map을 원본으로 주면 ProjectionFactory가 인터페이스 프로젝션을 만들면서 타입 변환(BigInteger -> Long 등)까지 해준다.
+        List<MemberProjection> content = rows.stream()
+                .map(row -> {
+                    Map<String, Object> source = new HashMap<>();
+                    source.put("id", row[0]);
+                    source.put("username", row[1]);
+                    source.put("teamName", row[2]);
+                    return projectionFactory.createProjection(MemberProjection.class, source);
+                })
+                .collect(Collectors.toList());
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countQueryCache.count("member", NATIVE_PROJECTION_COUNT_QUERY, Collections.emptyList(), countStrategy,
+                        () -> ((Number) em.createNativeQuery(NATIVE_PROJECTION_COUNT_QUERY).getSingleResult()).longValue()));
+    }
+
+    @Override
+    public Stream<MemberDto> streamMemberDto(int fetchSize) {
+        // getResultStream()은 Hibernate에서 forward-only ScrollableResults로 동작해서 결과를 한번에 메모리에 올리지 않는다.
+        // DTO로 바로 조회하기 때문에 영속성 컨텍스트에도 엔티티가 쌓이지 않는다.
+        return em.createQuery(MEMBER_DTO_QUERY + " order by m.id", MemberDto.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<MemberDto> streamMemberDto(Pageable pageable, int extraRows) {
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+        int maxResults = pageable.getPageSize() + extraRows;
+        return em.createQuery(QueryUtils.applySorting(MEMBER_DTO_QUERY, sort, "m"), MemberDto.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(maxResults)
+                .setHint(QueryHints.HINT_FETCH_SIZE, maxResults)
+                .getResultStream();
+    }
+
+    @Override
+    public <T> List<T> findProjectionsByUsername(String username, Class<T> type) {
+        Optional<ProjectionSelect> select = ProjectionSelect.of(em.getMetamodel(), projectionFactory, Member.class, type, "m");
+        if (select.isPresent()) {
+            ProjectionSelect projection = select.get();
+            return em.createQuery("select " + projection.getSelectClause() + " from Member m" + projection.getJoinClause() +
+                            " where m.username = :username", Tuple.class)
+                    .setParameter("username", username)
+                    .getResultStream()
+                    .map(tuple -> projectionFactory.createProjection(type, projection.toSource(tuple)))
+                    .collect(Collectors.toList());
+        }
+
+        if (type.isInterface()) {
+            // Open Projection은 SpEL에서 엔티티의 어떤 값을 사용할지 알 수 없으므로 엔티티를 조회한다.
+            return findMembersByUsername(username).stream()
+                    .map(member -> projectionFactory.createProjection(type, member))
+                    .collect(Collectors.toList());
+        }
+        if (type.isAssignableFrom(Member.class)) {
+            return findMembersByUsername(username).stream()
+                    .map(type::cast)
+                    .collect(Collectors.toList());
+        }
+
+        // 클래스 기반 Projection -> 생성자의 파라미터 이름으로 조회할 컬럼을 정한다.
+        Constructor<T> constructor = BeanUtils.getResolvableConstructor(type);
+        String[] parameterNames = PARAMETER_NAME_DISCOVERER.getParameterNames(constructor);
+        if (parameterNames == null) {
+            throw new IllegalArgumentException("생성자의 파라미터 이름을 알 수 없습니다. type = " + type.getName());
+        }
+        String arguments = Arrays.stream(parameterNames)
+                .map(name -> "m." + name)
+                .collect(Collectors.joining(", "));
+        return em.createQuery("select new " + type.getName() + "(" + arguments + ") from Member m where m.username = :username", type)
+                .setParameter("username", username)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional
+    public int bulkAgePlusAudited(int age) {
+        // 벌크 연산은 엔티티 콜백(AuditingEntityListener)이 실행되지 않으므로 수정자/수정일을 SQL에 직접 넣어준다.
+        int updated = em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1, " +
+                        "m.lastModifiedDate = :now, m.lastModifiedBy = :auditor where m.age >= :age")
+                .setParameter("now", auditClock.now())
+                .setParameter("auditor", auditorAware.getCurrentAuditor().orElse(null))
+                .setParameter("age", age)
+                .executeUpdate();
+        em.clear();
+        return updated;
+    }
+
+    private List<Member> findMembersByUsername(String username) {
+        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .getResultList();
+    }
+
+
+    @Override
+    public List<Member> findByNames(Collection<String> names) {
+        return inQueryExecutor.execute(names, chunk -> em.createQuery("select m from Member m where m.username in :names", Member.class)
+                .setParameter("names", chunk)
+                .getResultList());
+    }
+
+    @Override
+    public List<Member> findAllById(Iterable<Long> ids) {
+        Assert.notNull(ids, "Ids must not be null!");
+        return inQueryExecutor.execute(ids, chunk -> em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", chunk)
+                .getResultList());
+    }
 }
@@ -0,0 +1,165 @@
+package study.datajpa.repository;
+
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.ProjectionInformation;
+
+import javax.persistence.Tuple;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.IdentifiableType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+*   Closed Projection 인터페이스가 선언한 프로퍼티만 조회하는 JPQL select 절을 만든다.
+*   Spring Data는 중첩 프로젝션(NestedClosedProjections.TeamInfo)의 엔티티를 통째로 조회하지만,
+*   여기서는 중첩된 엔티티를 left join 하고 중첩 프로젝션이 선언한 컬럼만 select 한다. (중첩 깊이 제한 없음)
+*   Tuple 결과는 프로퍼티 경로대로 중첩된 Map으로 만들어서 ProjectionFactory에 넘긴다.
+*
+*   join한 엔티티는 id도 같이 조회해서, 선언한 컬럼이 모두 null이어도 연관된 엔티티가 있는지 구분한다.
+*
+*   select m.username, j1.id, j1.name from Member m left join m.team j1
+*   -> {username: "member1", team: {name: "teamA"}}
+* */
+public final class ProjectionSelect {
+
+    // 중첩된 Map에 join한 엔티티의 id를 담는 키, ProjectionFactory에 넘기기 전에 제거한다.
+    private static final String JOIN_ID = "#id";
+
+    private final List<String> selections = new ArrayList<>();
+    private final List<List<String>> propertyPaths = new ArrayList<>();
+    private final StringBuilder joins = new StringBuilder();
+    private int joinCount;
+
+    private ProjectionSelect() {
+    }
+
+    // 컬렉션 연관관계나 Open Projection(@Value)이 포함되어 있으면 컬럼만 골라서 조회할 수 없으므로 empty
+    public static Optional<ProjectionSelect> of(Metamodel metamodel, ProjectionFactory projectionFactory,
+                                                Class<?> entityType, Class<?> projectionType, String alias) {
+        if (!projectionType.isInterface()) {
+            return Optional.empty();
+        }
+
+        ProjectionSelect select = new ProjectionSelect();
+        boolean supported = select.add(metamodel, projectionFactory, metamodel.managedType(entityType),
+                projectionType, alias, Collections.emptyList());
+        return supported ? Optional.of(select) : Optional.empty();
+    }
+
+    public String getSelectClause() {
+        return String.join(", ", selections);
+    }
+
+    // " left join m.team j1 left join j1.xxx j2" 형태, join이 없으면 빈 문자열
+    public String getJoinClause() {
+        return joins.toString();
+    }
+
+    public Map<String, Object> toSource(Tuple tuple) {
+        Map<String, Object> source = new LinkedHashMap<>();
+        for (int i = 0; i < propertyPaths.size(); i++) {
+            put(source, propertyPaths.get(i), tuple.get(i));
+        }
+        return compact(source);
+    }
+
+    private boolean add(Metamodel metamodel, ProjectionFactory projectionFactory, ManagedType<?> managedType,
+                        Class<?> projectionType, String path, List<String> parentPath) {
+        ProjectionInformation information = projectionFactory.getProjectionInformation(projectionType);
+        if (!information.isClosed()) {
+            return false;
+        }
+
+        for (PropertyDescriptor property : information.getInputProperties()) {
+            Attribute<?, ?> attribute = attribute(managedType, property.getName());
+            if (attribute == null || attribute.isCollection()) {
+                return false;
+            }
+
+            List<String> propertyPath = new ArrayList<>(parentPath);
+            propertyPath.add(property.getName());
+
+            Class<?> propertyType = property.getPropertyType();
+            boolean nested = propertyType.isInterface() && !propertyType.isAssignableFrom(attribute.getJavaType());
+            if (!nested) {
+                selections.add(path + "." + property.getName());
+                propertyPaths.add(propertyPath);
+                continue;
+            }
+
+            switch (attribute.getPersistentAttributeType()) {
+                case EMBEDDED:
+                    if (!add(metamodel, projectionFactory, metamodel.managedType(attribute.getJavaType()),
+                            propertyType, path + "." + property.getName(), propertyPath)) {
+                        return false;
+                    }
+                    break;
+                case MANY_TO_ONE:
+                case ONE_TO_ONE:
+                    // 연관관계가 없는 row도 조회되어야 하므로 inner join이 아닌 left join
+                    String joinAlias = "j" + (++joinCount);
+                    joins.append(" left join ").append(path).append('.').append(property.getName()).append(' ').append(joinAlias);
+                    ManagedType<?> joinType = metamodel.managedType(attribute.getJavaType());
+                    if (!(joinType instanceof IdentifiableType)) {
+                        return false;
+                    }
+                    List<String> idPath = new ArrayList<>(propertyPath);
+                    idPath.add(JOIN_ID);
+                    selections.add(joinAlias + "." + idAttributeName((IdentifiableType<?>) joinType));
+                    propertyPaths.add(idPath);
+                    if (!add(metamodel, projectionFactory, joinType,
+                            propertyType, joinAlias, propertyPath)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static Attribute<?, ?> attribute(ManagedType<?> managedType, String name) {
+        try {
+            return managedType.getAttribute(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String idAttributeName(IdentifiableType<?> type) {
+        return type.getId(type.getIdType().getJavaType()).getName();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> source, List<String> path, Object value) {
+        Map<String, Object> current = source;
+        for (int i = 0; i < path.size() - 1; i++) {
+            current = (Map<String, Object>) current.computeIfAbsent(path.get(i), key -> new LinkedHashMap<String, Object>());
+        }
+        current.put(path.get(path.size() - 1), value);
+    }
+
+    // join한 엔티티의 id가 null이면 연관된 엔티티가 없는 것이므로 중첩 프로젝션도 null로 반환한다.
+    // 임베디드 타입은 id가 없으므로 JPA와 같이 값이 전부 null일 때 null로 본다.
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> compact(Map<String, Object> source) {
+        source.replaceAll((key, value) -> value instanceof Map ? compactNested((Map<String, Object>) value) : value);
+        return source;
+    }
+
+    private static Map<String, Object> compactNested(Map<String, Object> nested) {
+        compact(nested);
+        if (nested.containsKey(JOIN_ID)) {
+            return nested.remove(JOIN_ID) == null ? null : nested;
+        }
+        return nested.values().stream().allMatch(value -> value == null) ? null : nested;
+    }
+}
@@ -1,6 +1,7 @@
 package study.datajpa.repository;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
@@ -19,6 +20,12 @@ public class TeamJpaRepository {
         return team;
     }
 
+    // 대량 등록 -> batchSize마다 flush/clear 한다. (BatchedPersist)
+    @Transactional
+    public int saveAllBatched(Iterable<Team> teams, int batchSize) {
+        return BatchedPersist.persistAll(em, teams, batchSize);
+    }
+
     public void delete(Team team) {
         em.remove(team);
     }
@@ -0,0 +1,27 @@
+package study.datajpa.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+*   낙관적 락 충돌(OptimisticLockException)이 발생하면 메서드를 처음부터 다시 실행한다. (OptimisticRetryAspect)
+*   재시도 사이에는 backoff(ms) 부터 multiplier 배씩 늘어나는 시간(최대 maxBackoff) 안에서 랜덤하게 기다린다. (full jitter)
+*   @Transactional과 같이 사용하면 재시도마다 새 트랜잭션으로 실행된다. 이미 트랜잭션 안에서 호출되면 재시도하지 않는다.
+* */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface OptimisticRetry {
+
+    // 처음 실행을 포함한 최대 실행 횟수
+    int maxAttempts() default 3;
+
+    long backoff() default 10;
+
+    double multiplier() default 2.0;
+
+    long maxBackoff() default 500;
+}
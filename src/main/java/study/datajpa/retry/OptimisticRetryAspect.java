@@ -0,0 +1,61 @@
+package study.datajpa.retry;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.monitoring.LockMetrics;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Slf4j
+@Aspect
+@Component
+// @Transactional(LOWEST_PRECEDENCE)보다 바깥에서 실행되어야 재시도할 때마다 새 트랜잭션(새 영속성 컨텍스트)에서 다시 조회한다.
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class OptimisticRetryAspect {
+
+    private final LockMetrics lockMetrics;
+
+    @Around("@annotation(retry)")
+    public Object retry(ProceedingJoinPoint joinPoint, OptimisticRetry retry) throws Throwable {
+        // 바깥 트랜잭션의 영속성 컨텍스트에는 이미 오래된 엔티티가 있으므로 여기서 재시도해도 다시 충돌한다. -> 바깥에서 재시도해야 한다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String name = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        double backoff = retry.backoff();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = joinPoint.proceed();
+                lockMetrics.recordAttempts(name, attempt, true);
+                return result;
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= retry.maxAttempts()) {
+                    lockMetrics.recordAttempts(name, attempt, false);
+                    throw e;
+                }
+
+                long sleep = ThreadLocalRandom.current().nextLong((long) backoff + 1);
+                log.debug("낙관적 락 충돌, {}ms 후 재시도합니다. method = {}, attempt = {}", sleep, name, attempt);
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    lockMetrics.recordAttempts(name, attempt, false);
+                    throw e;
+                }
+                backoff = Math.min(backoff * retry.multiplier(), retry.maxBackoff());
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.batch.BulkUpdate;
+import study.datajpa.batch.BulkUpdateExecutor;
+import study.datajpa.batch.BulkUpdateResult;
+import study.datajpa.entity.Member;
+import study.datajpa.monitoring.LockMetrics;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.retry.OptimisticRetry;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class MemberService {
+
+    private final MemberRepository memberRepository;
+    private final LockMetrics lockMetrics;
+    private final BulkUpdateExecutor bulkUpdateExecutor;
+
+    // 비관적 락 -> select ... for update로 먼저 락을 잡은 트랜잭션이 끝날 때까지 기다린다. (같은 회원을 수정하는 요청이 전부 줄을 선다)
+    @Transactional
+    public int increaseAgeWithPessimisticLock(String username) {
+        List<Member> members = lockMetrics.recordLockWait("MemberService.increaseAgeWithPessimisticLock",
+                () -> memberRepository.findLockByUsername(username));
+        members.forEach(member -> member.setAge(member.getAge() + 1));
+        return members.size();
+    }
+
+    // 낙관적 락 -> 락 없이 조회하고 커밋할 때 version으로 충돌을 확인한다. 충돌하면 @OptimisticRetry가 처음부터 다시 실행한다.
+    @OptimisticRetry(maxAttempts = 10)
+    @Transactional
+    public int increaseAge(String username) {
+        List<Member> members = memberRepository.findByUsername(username);
+        members.forEach(member -> member.setAge(member.getAge() + 1));
+        return members.size();
+    }
+
+    // MemberRepository.bulkAgePlus와 같은 수정을 PK 구간마다 나눠서 커밋한다. 중간에 실패하면 같은 jobName으로 다시 호출해서 이어서 실행한다.
+    public BulkUpdateResult bulkAgePlus(String jobName, int age) {
+        return bulkUpdateExecutor.execute(BulkUpdate.of(jobName, Member.class,
+                        "update Member m set m.age = m.age + 1, m.version = m.version + 1" +
+                                " where m.age >= :age and m.id between :chunkStart and :chunkEnd")
+                .parameter("age", age));
+    }
+}
@@ -0,0 +1,165 @@
+package study.datajpa.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.MemberService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 구간마다 별도 트랜잭션으로 커밋되므로 테스트에 @Transactional을 붙이지 않는다.
+@SpringBootTest
+class BulkUpdateExecutorTest {
+
+    private static final String JOB_NAME = "bulkUpdateExecutorTest";
+    private static final int BASE_AGE = 100000;
+
+    @Autowired BulkUpdateExecutor bulkUpdateExecutor;
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+
+    private final List<Member> saved = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch(saved);
+        bulkUpdateExecutor.reset(JOB_NAME);
+    }
+
+    @Test
+    public void chunkedBulkUpdate() {
+        // given
+        for (int i = 0; i < 25; i++) {
+            saved.add(memberRepository.save(new Member("bulkMember" + i, BASE_AGE + i)));
+        }
+
+        // when
+        BulkUpdateResult result = bulkUpdateExecutor.execute(agePlus().chunkSize(10));
+
+        // then
+        Assertions.assertThat(result.getUpdatedRows()).isEqualTo(25);
+        Assertions.assertThat(result.getChunks()).isGreaterThanOrEqualTo(3);
+        Assertions.assertThat(result.getSkippedChunks()).isZero();
+        for (Member member : saved) {
+            Member updated = memberRepository.findById(member.getId()).get();
+            Assertions.assertThat(updated.getAge()).isEqualTo(member.getAge() + 1);
+            Assertions.assertThat(updated.getVersion()).isEqualTo(member.getVersion() + 1);
+        }
+    }
+
+    @Test
+    public void resumeSkipsCheckpointedChunks() {
+        // given
+        saved.add(memberRepository.save(new Member("bulkMember", BASE_AGE)));
+        bulkUpdateExecutor.execute(agePlus());
+
+        // when
+        // 체크포인트가 남아있으므로 같은 jobName으로 다시 실행해도 이미 커밋된 구간은 다시 수정하지 않는다.
+        BulkUpdateResult resumed = bulkUpdateExecutor.execute(agePlus());
+
+        // then
+        Assertions.assertThat(resumed.getUpdatedRows()).isZero();
+        Assertions.assertThat(resumed.getSkippedChunks()).isEqualTo(resumed.getChunks());
+        Assertions.assertThat(memberRepository.findById(saved.get(0).getId()).get().getAge()).isEqualTo(BASE_AGE + 1);
+
+        // reset 하면 처음부터 다시 실행한다.
+        bulkUpdateExecutor.reset(JOB_NAME);
+        BulkUpdateResult rerun = bulkUpdateExecutor.execute(agePlus());
+        Assertions.assertThat(rerun.getUpdatedRows()).isEqualTo(1);
+        Assertions.assertThat(memberRepository.findById(saved.get(0).getId()).get().getAge()).isEqualTo(BASE_AGE + 2);
+    }
+
+    @Test
+    public void resumeAfterInsertAboveMaxId() {
+        // given
+        List<Member> first = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            first.add(memberRepository.save(new Member("bulkMember" + i, BASE_AGE)));
+        }
+        saved.addAll(first);
+        bulkUpdateExecutor.execute(agePlus().chunkSize(10));
+
+        List<Member> added = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            added.add(memberRepository.save(new Member("bulkAddedMember" + i, BASE_AGE)));
+        }
+        saved.addAll(added);
+
+        // when
+        // 마지막 구간의 체크포인트는 이전 최대 PK까지만 기록되어 있으므로 그 위로 추가된 row만 수정한다.
+        BulkUpdateResult resumed = bulkUpdateExecutor.execute(agePlus().chunkSize(10));
+
+        // then
+        Assertions.assertThat(resumed.getUpdatedRows()).isEqualTo(5);
+        for (Member member : first) {
+            Assertions.assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(BASE_AGE + 1);
+        }
+        for (Member member : added) {
+            Assertions.assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(BASE_AGE + 1);
+        }
+    }
+
+    @Test
+    public void resumeAfterDeletingLowestId() {
+        // given
+        for (int i = 0; i < 25; i++) {
+            saved.add(memberRepository.save(new Member("bulkMember" + i, BASE_AGE)));
+        }
+        bulkUpdateExecutor.execute(agePlus().chunkSize(10));
+
+        // 테이블의 최소 PK가 바뀌어도 구간 경계는 floor(id / chunkSize) * chunkSize 로 같다.
+        Member lowest = memberRepository.findAll(PageRequest.of(0, 1, Sort.by("id"))).getContent().get(0);
+        memberRepository.deleteById(lowest.getId());
+        saved.removeIf(member -> member.getId().equals(lowest.getId()));
+
+        // when
+        BulkUpdateResult resumed = bulkUpdateExecutor.execute(agePlus().chunkSize(10));
+
+        // then
+        Assertions.assertThat(resumed.getUpdatedRows()).isZero();
+        Assertions.assertThat(resumed.getSkippedChunks()).isEqualTo(resumed.getChunks());
+        for (Member member : saved) {
+            Assertions.assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(BASE_AGE + 1);
+        }
+    }
+
+    @Test
+    public void resumeWithDifferentChunkSize() {
+        // given
+        saved.add(memberRepository.save(new Member("bulkMember", BASE_AGE)));
+        bulkUpdateExecutor.execute(agePlus().chunkSize(10));
+
+        // when, then
+        Assertions.assertThatThrownBy(() -> bulkUpdateExecutor.execute(agePlus().chunkSize(20)))
+                .isInstanceOf(IllegalStateException.class);
+        Assertions.assertThat(memberRepository.findById(saved.get(0).getId()).get().getAge()).isEqualTo(BASE_AGE + 1);
+    }
+
+    @Test
+    public void serviceBulkAgePlus() {
+        // given
+        saved.add(memberRepository.save(new Member("bulkMember", BASE_AGE)));
+
+        // when
+        BulkUpdateResult result = memberService.bulkAgePlus(JOB_NAME, BASE_AGE);
+
+        // then
+        Assertions.assertThat(result.getUpdatedRows()).isEqualTo(1);
+        Assertions.assertThat(result.getRowsPerSecond()).isPositive();
+        Assertions.assertThat(memberRepository.findById(saved.get(0).getId()).get().getAge()).isEqualTo(BASE_AGE + 1);
+    }
+
+    private BulkUpdate agePlus() {
+        return BulkUpdate.of(JOB_NAME, Member.class,
+                        "update Member m set m.age = m.age + 1, m.version = m.version + 1" +
+                                " where m.age >= :age and m.id between :chunkStart and :chunkEnd")
+                .parameter("age", BASE_AGE);
+    }
+}
@@ -0,0 +1,98 @@
+package study.datajpa.batch;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// 파티션마다 별도 트랜잭션으로 읽으므로 테스트에 @Transactional을 붙이지 않는다.
+@SpringBootTest
+class PartitionedScannerTest {
+
+    private static final int BASE_AGE = 200000;
+
+    @Autowired PartitionedScanner partitionedScanner;
+    @Autowired MemberRepository memberRepository;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired DataSource dataSource;
+
+    private final List<Member> saved = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch(saved);
+    }
+
+    @Test
+    public void scanAllPartitions() {
+        // given
+        for (int i = 0; i < 30; i++) {
+            saved.add(memberRepository.save(new Member("scanMember" + i, BASE_AGE + i)));
+        }
+
+        // when
+        PartitionedScanResult<Set<Long>> result = partitionedScanner.scan(
+                PartitionedScan.of(Member.class).partitions(7).pageSize(4).readOnly(),
+                Collectors.mapping(Member::getId, Collectors.toSet()));
+
+        // then
+        // 다른 테스트가 커밋한 회원이 있을 수 있으므로 저장한 회원이 전부 한번씩 읽혔는지만 확인한다.
+        Set<Long> savedIds = saved.stream().map(Member::getId).collect(Collectors.toSet());
+        Assertions.assertThat(result.getResult()).containsAll(savedIds);
+        Assertions.assertThat(result.getEntities()).isEqualTo(result.getResult().size());
+        Assertions.assertThat(result.getPartitions()).hasSizeLessThanOrEqualTo(7);
+        Assertions.assertThat(result.getPartitions())
+                .allSatisfy(partition -> Assertions.assertThat(partition.getElapsed()).isNotNull());
+    }
+
+    @Test
+    public void modifyInPartitions() {
+        // given
+        for (int i = 0; i < 10; i++) {
+            saved.add(memberRepository.save(new Member("scanMember" + i, BASE_AGE)));
+        }
+
+        // when
+        // 파티션 트랜잭션이 커밋될 때 dirty checking으로 반영된다.
+        PartitionedScanResult<Long> result = partitionedScanner.scan(PartitionedScan.of(Member.class).partitions(3).pageSize(3),
+                Collectors.summingLong(member -> {
+                    if (member.getAge() != BASE_AGE) {
+                        return 0L;
+                    }
+                    member.setAge(BASE_AGE + 1);
+                    return 1L;
+                }));
+
+        // then
+        Assertions.assertThat(result.getResult()).isEqualTo(10L);
+        for (Member member : saved) {
+            Assertions.assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(BASE_AGE + 1);
+        }
+    }
+
+    @Test
+    public void parallelismAbovePoolSize() throws Exception {
+        // given
+        int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+
+        // when, then
+        // 스레드마다 커넥션을 사용하므로 풀보다 많은 스레드는 커넥션을 기다리기만 한다.
+        Assertions.assertThatThrownBy(() -> new PartitionedScanner(em, transactionManager, dataSource, poolSize + 1, 4, 500))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatCode(() -> new PartitionedScanner(em, transactionManager, dataSource, poolSize, 4, 500))
+                .doesNotThrowAnyException();
+    }
+}
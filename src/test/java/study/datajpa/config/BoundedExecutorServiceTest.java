@@ -0,0 +1,54 @@
+package study.datajpa.config;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class BoundedExecutorServiceTest {
+
+    @Test
+    public void limitConcurrencyAndRejectOverflow() throws Exception {
+        // given
+        // 작업마다 스레드를 만드는 가상 스레드 실행기 대신 캐시 스레드 풀을 사용한다. (JDK 21 미만에서도 실행)
+        BoundedExecutorService executor = new BoundedExecutorService(Executors.newCachedThreadPool(), 2, 1);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        try {
+            // when
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(executor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    started.countDown();
+                    release.await();
+                    running.decrementAndGet();
+                    return null;
+                }));
+            }
+
+            // then
+            Assertions.assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            // 2개 실행 + 1개 대기가 한도이므로 네번째 작업은 바로 거절된다.
+            Assertions.assertThatThrownBy(() -> executor.submit(() -> { }))
+                    .isInstanceOf(RejectedExecutionException.class);
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            Assertions.assertThat(maxRunning.get()).isEqualTo(2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
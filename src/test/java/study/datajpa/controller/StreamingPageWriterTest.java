@@ -0,0 +1,90 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.dto.MemberDto;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+class StreamingPageWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StreamingPageWriter writer = new StreamingPageWriter(objectMapper);
+
+    @Test
+    public void page() throws Exception {
+        // given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicInteger countQueries = new AtomicInteger();
+
+        // when
+        writer.writePage(out, PageRequest.of(1, 3), members(3), () -> {
+            countQueries.incrementAndGet();
+            return 10;
+        });
+
+        // then
+        JsonNode page = objectMapper.readTree(out.toByteArray());
+        Assertions.assertThat(page.get("content")).hasSize(3);
+        Assertions.assertThat(page.get("content").get(0).get("username").asText()).isEqualTo("member1");
+        Assertions.assertThat(page.get("number").asInt()).isEqualTo(1);
+        Assertions.assertThat(page.get("size").asInt()).isEqualTo(3);
+        Assertions.assertThat(page.get("numberOfElements").asInt()).isEqualTo(3);
+        Assertions.assertThat(page.get("totalElements").asLong()).isEqualTo(10);
+        Assertions.assertThat(page.get("totalPages").asLong()).isEqualTo(4);
+        Assertions.assertThat(page.get("hasNext").asBoolean()).isTrue();
+        Assertions.assertThat(page.has("pageable")).isFalse();
+        Assertions.assertThat(countQueries.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void lastPageWithoutCountQuery() throws Exception {
+        // given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        writer.writePage(out, PageRequest.of(3, 3), members(1), () -> {
+            throw new AssertionError("마지막 페이지는 읽은 개수로 전체 개수를 알 수 있다.");
+        });
+
+        // then
+        JsonNode page = objectMapper.readTree(out.toByteArray());
+        Assertions.assertThat(page.get("totalElements").asLong()).isEqualTo(10);
+        Assertions.assertThat(page.get("totalPages").asLong()).isEqualTo(4);
+        Assertions.assertThat(page.get("hasNext").asBoolean()).isFalse();
+    }
+
+    @Test
+    public void slice() throws Exception {
+        // given
+        ByteArrayOutputStream hasNext = new ByteArrayOutputStream();
+        ByteArrayOutputStream last = new ByteArrayOutputStream();
+
+        // when
+        // pageSize + 1개를 읽은 Stream
+        writer.writeSlice(hasNext, PageRequest.of(0, 3), members(4));
+        writer.writeSlice(last, PageRequest.of(1, 3), members(2));
+
+        // then
+        JsonNode first = objectMapper.readTree(hasNext.toByteArray());
+        Assertions.assertThat(first.get("content")).hasSize(3);
+        Assertions.assertThat(first.get("hasNext").asBoolean()).isTrue();
+        Assertions.assertThat(first.has("totalElements")).isFalse();
+
+        JsonNode second = objectMapper.readTree(last.toByteArray());
+        Assertions.assertThat(second.get("content")).hasSize(2);
+        Assertions.assertThat(second.get("numberOfElements").asInt()).isEqualTo(2);
+        Assertions.assertThat(second.get("hasNext").asBoolean()).isFalse();
+    }
+
+    private static Stream<MemberDto> members(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> new MemberDto(id, "member" + id, "teamA"));
+    }
+}
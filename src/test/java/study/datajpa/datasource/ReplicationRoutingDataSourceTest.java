@@ -0,0 +1,68 @@
+package study.datajpa.datasource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+// 인메모리 H2 두개를 primary, replica로 사용한다. DATABASE()는 접속한 DB 이름(PRIMARY, REPLICA)을 반환한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "datajpa.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "datajpa.datasource.replica.max-lag=300ms"
+})
+class ReplicationRoutingDataSourceTest {
+
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired MemberRepository memberRepository;
+
+    @BeforeEach
+    public void clear() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    public void routing() {
+        Assertions.assertThat(databaseName(true)).isEqualTo("REPLICA");
+        Assertions.assertThat(databaseName(false)).isEqualTo("PRIMARY");
+    }
+
+    @Test
+    public void repositoryReadsFromReplica() {
+        // given
+        // 테이블은 primary에만 만들어지므로(ddl-auto) replica에서 조회하면 실패한다.
+        memberRepository.save(new Member("routingMember", 10));
+        ReadYourWrites.clear();
+
+        // when & then
+        Assertions.assertThatThrownBy(() -> memberRepository.findByUsername("routingMember"))
+                .hasMessageContaining("MEMBER");
+    }
+
+    @Test
+    public void readYourWrites() throws InterruptedException {
+        // given
+        databaseName(false);
+
+        // when & then
+        // 쓰기 직후에는 읽기 전용 트랜잭션도 primary에서 읽는다.
+        Assertions.assertThat(databaseName(true)).isEqualTo("PRIMARY");
+
+        // max-lag이 지나면 다시 replica에서 읽는다.
+        Thread.sleep(400);
+        Assertions.assertThat(databaseName(true)).isEqualTo("REPLICA");
+    }
+
+    private String databaseName(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("select database()", String.class));
+    }
+}
@@ -0,0 +1,73 @@
+package study.datajpa.id;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.PooledLoOptimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.monitoring.SqlStatistics;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+@Transactional
+class PooledLoSequenceGeneratorTest {
+
+    @Autowired EntityManager em;
+    @Autowired SqlStatistics sqlStatistics;
+
+    @Value("${datajpa.id.allocation-size}")
+    int allocationSize;
+
+    @Test
+    public void allocationSizeFromProperty() {
+        // when
+        SequenceStyleGenerator generator = (SequenceStyleGenerator) em.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(Member.class).getIdentifierGenerator();
+
+        // then
+        // HibernateConfig가 넘긴 datajpa.id.allocation-size가 increment_size로 들어간다.
+        Assertions.assertThat(generator.getOptimizer()).isInstanceOf(PooledLoOptimizer.class);
+        Assertions.assertThat(generator.getOptimizer().getIncrementSize()).isEqualTo(allocationSize);
+    }
+
+    @Test
+    public void consecutiveIdsFromOneBlock() {
+        // given
+        sqlStatistics.reset();
+
+        // when
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < allocationSize; i++) {
+            Member member = new Member("sequenceMember" + i, i);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+
+        // then
+        // allocation-size 만큼 저장해도 시퀀스는 한번만 조회한다.
+        // 앞선 테스트가 쓰다 남은 범위를 이어 쓸 수 있으므로 id가 끊기는 곳은 새 범위로 넘어가는 한군데뿐이다.
+        long sequenceCalls = sqlStatistics.summaries("calls", 100).stream()
+                .filter(summary -> summary.getFingerprint().contains("member_seq"))
+                .mapToLong(SqlStatistics.StatementSummary::getCalls)
+                .sum();
+        Assertions.assertThat(sequenceCalls).isEqualTo(1);
+
+        int gaps = 0;
+        for (int i = 1; i < ids.size(); i++) {
+            Assertions.assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+            if (ids.get(i) != ids.get(i - 1) + 1) {
+                gaps++;
+            }
+        }
+        Assertions.assertThat(gaps).isLessThanOrEqualTo(1);
+    }
+}
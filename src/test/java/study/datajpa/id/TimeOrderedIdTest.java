@@ -0,0 +1,60 @@
+package study.datajpa.id;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class TimeOrderedIdTest {
+
+    @Test
+    public void orderedAndUuidV7() {
+        // given
+        List<String> ids = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(TimeOrderedId.next());
+        }
+
+        // then
+        // 같은 밀리초에 만들어도 문자열 순서가 생성 순서와 같다.
+        Assertions.assertThat(ids).isSorted().doesNotHaveDuplicates();
+        UUID uuid = UUID.fromString(ids.get(0));
+        Assertions.assertThat(uuid.version()).isEqualTo(7);
+        Assertions.assertThat(uuid.variant()).isEqualTo(2);
+        Assertions.assertThat(uuid.getMostSignificantBits() >>> 16).isCloseTo(System.currentTimeMillis(),
+                Assertions.within(60_000L));
+    }
+
+    @Test
+    public void uniqueAcrossThreads() throws Exception {
+        // given
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    ids.add(TimeOrderedId.next());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then
+        Assertions.assertThat(ids).hasSize(80_000);
+    }
+}
@@ -0,0 +1,155 @@
+package study.datajpa.loader;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.datasource.ReadYourWrites;
+import study.datajpa.entity.Member;
+import study.datajpa.monitoring.StatementScope;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// window를 넉넉하게 잡아서 동시에 시작한 조회가 항상 같은 window 안에 들어오게 한다.
+@SpringBootTest(properties = "datajpa.coalescing.window=100ms")
+class MemberLoaderTest {
+
+    @Autowired MemberLoader memberLoader;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    private final List<Member> saved = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch(saved);
+    }
+
+    @Test
+    public void singleFlight() throws Exception {
+        // given
+        Member member = memberRepository.save(new Member("coalescingMember", 10));
+        saved.add(member);
+        // 저장한 회원은 2차 캐시에 들어가므로 비워야 DB 조회를 묶는다.
+        entityManagerFactory.getCache().evict(Member.class);
+        double queriesBefore = queries();
+
+        // when
+        int threads = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<Member>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return memberLoader.findById(member.getId());
+                }));
+            }
+            start.countDown();
+
+            // then
+            for (Future<Optional<Member>> result : results) {
+                Assertions.assertThat(result.get(10, TimeUnit.SECONDS)).get()
+                        .extracting(Member::getUsername).isEqualTo("coalescingMember");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // 같은 id 조회 20개가 DB 조회 하나를 공유한다.
+        Assertions.assertThat(queries() - queriesBefore).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("coalescing.ratio").tag("name", "member").gauge().value())
+                .isGreaterThan(1);
+    }
+
+    @Test
+    public void batchDifferentIds() {
+        // given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Member member = memberRepository.save(new Member("coalescingMember" + i, i));
+            saved.add(member);
+            ids.add(member.getId());
+        }
+        entityManagerFactory.getCache().evict(Member.class);
+        double queriesBefore = queries();
+
+        // when
+        List<CompletableFuture<Optional<Member>>> futures = new ArrayList<>();
+        for (Long id : ids) {
+            futures.add(memberLoader.load(id));
+        }
+        CompletableFuture<Optional<Member>> missing = memberLoader.load(-1L);
+
+        // then
+        // window 안에 들어온 서로 다른 id는 where id in (...) 한번으로 조회한다.
+        for (int i = 0; i < ids.size(); i++) {
+            Assertions.assertThat(futures.get(i).join()).get().extracting(Member::getId).isEqualTo(ids.get(i));
+        }
+        Assertions.assertThat(missing.join()).isEmpty();
+        Assertions.assertThat(queries() - queriesBefore).isEqualTo(1);
+    }
+
+    @Test
+    public void cachedIdSkipsBatching() {
+        // given
+        Member member = memberRepository.save(new Member("coalescingMember", 10));
+        saved.add(member);
+        entityManagerFactory.getCache().evict(Member.class);
+        memberLoader.findById(member.getId());
+        double queriesBefore = queries();
+
+        // when
+        Optional<Member> cached;
+        try (StatementScope scope = StatementScope.open("test")) {
+            cached = memberLoader.load(member.getId()).join();
+
+            // then
+            // 처음 조회할 때 2차 캐시에 들어갔으므로 다시 조회하면 SQL 없이 캐시에서 읽는다.
+            Assertions.assertThat(scope.getCount()).isZero();
+        }
+        Assertions.assertThat(cached).get().extracting(Member::getUsername).isEqualTo("coalescingMember");
+        Assertions.assertThat(queries() - queriesBefore).isZero();
+    }
+
+    @Test
+    public void recentWriteSkipsBatching() {
+        // given
+        Member member = memberRepository.save(new Member("coalescingMember", 10));
+        saved.add(member);
+        entityManagerFactory.getCache().evict(Member.class);
+        double queriesBefore = queries();
+        ReadYourWrites.markWrite();
+
+        // when
+        Optional<Member> found;
+        try (StatementScope scope = StatementScope.open("test")) {
+            found = memberLoader.findById(member.getId());
+
+            // then
+            // 방금 쓰기를 한 스레드는 묶지 않고 요청 스레드에서 조회하므로 SQL이 이 스레드에 기록된다.
+            Assertions.assertThat(scope.getCount()).isEqualTo(1);
+        } finally {
+            ReadYourWrites.clear();
+        }
+        Assertions.assertThat(found).get().extracting(Member::getUsername).isEqualTo("coalescingMember");
+        Assertions.assertThat(queries() - queriesBefore).isZero();
+    }
+
+    private double queries() {
+        return meterRegistry.get("coalescing.queries").tag("name", "member").functionCounter().count();
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.monitoring;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired IndexAdvisor indexAdvisor;
+    @Autowired SqlStatistics sqlStatistics;
+
+    @Test
+    public void candidates() {
+        // where 절의 = 조건 -> 범위 조건 하나
+        Assertions.assertThat(IndexAdvisor.candidates(
+                "select member0_.member_id as member_i1_1_ from member member0_ where member0_.username=? and member0_.age>? and member0_.version>?"))
+                .extracting(Object::toString)
+                .containsExactly("member[username, age]");
+        // 범위 조건이 없으면 order by 컬럼을 붙이고, 조인 컬럼은 따로 후보를 만든다.
+        Assertions.assertThat(IndexAdvisor.candidates(
+                "select member0_.member_id as member_i1_1_ from member member0_ left outer join team team1_ on member0_.team_id=team1_.team_id " +
+                        "where team1_.name in (?...) order by member0_.age desc limit ?"))
+                .extracting(Object::toString)
+                .containsExactly("team[name]", "member[age]", "member[team_id]", "team[team_id]");
+        // 별칭이 없는 네이티브 쿼리
+        Assertions.assertThat(IndexAdvisor.candidates("select * from member where username = ?"))
+                .extracting(Object::toString)
+                .containsExactly("member[username]");
+        Assertions.assertThat(IndexAdvisor.candidates("insert into member (age, username) values (?, ?)")).isEmpty();
+    }
+
+    @Test
+    public void recommendMissingIndexes() {
+        // given
+        sqlStatistics.record("select team0_.team_id as team_id1_2_ from team team0_ where team0_.name=? order by team0_.created_date desc",
+                TimeUnit.MILLISECONDS.toNanos(30), 1, Collections::emptyList);
+        sqlStatistics.record("select member0_.member_id as member_i1_1_ from member member0_ where member0_.username=? and member0_.age>?",
+                TimeUnit.MILLISECONDS.toNanos(50), 1, Collections::emptyList);
+
+        // when
+        List<IndexAdvisor.Recommendation> recommendations = indexAdvisor.recommendations();
+
+        // then
+        // Member의 @Table(indexes = ...)는 ddl-auto가 만들었으므로 추천하지 않는다.
+        Assertions.assertThat(recommendations)
+                .noneMatch(recommendation -> recommendation.getTable().equals("member") && recommendation.getColumns().contains("username"));
+        IndexAdvisor.Recommendation team = recommendations.stream()
+                .filter(recommendation -> recommendation.getTable().equals("team"))
+                .filter(recommendation -> recommendation.getColumns().equals(List.of("name", "created_date")))
+                .findFirst().orElseThrow();
+        Assertions.assertThat(team.getDdl()).isEqualTo("create index idx_team_name_created_date on team (name, created_date)");
+        Assertions.assertThat(team.isDeclared()).isFalse();
+        Assertions.assertThat(team.getTotalTimeMs()).isGreaterThanOrEqualTo(30.0);
+    }
+}
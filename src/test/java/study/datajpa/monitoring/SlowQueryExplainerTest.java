@@ -0,0 +1,74 @@
+package study.datajpa.monitoring;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// threshold를 0으로 두면 모든 select가 느린 SQL로 잡힌다.
+@SpringBootTest(properties = "datajpa.slow-query.threshold=0ms")
+class SlowQueryExplainerTest {
+
+    @Autowired SlowQueryExplainer slowQueryExplainer;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJpaRepository memberJpaRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        slowQueryExplainer.clear();
+    }
+
+    @Test
+    public void explainSlowQueries() throws Exception {
+        // given
+        Member member = memberRepository.save(new Member("slowQueryMember", 77));
+        slowQueryExplainer.clear();
+
+        try {
+            // when
+            memberRepository.findByAge(77, PageRequest.of(0, 10));
+            memberJpaRepository.findByUsernameAndAgeGreaterThan("slowQueryMember", 10);
+
+            // then
+            // count 쿼리 등 다른 select도 잡히므로 개수가 아니라 기대하는 origin이 모두 모일 때까지 기다린다.
+            List<SlowQueryExplainer.SlowQueryPlan> plans = awaitPlans(
+                    "MemberRepository.findByAge", "MemberJpaRepository.findByUsernameAndAgeGreaterThan");
+            Assertions.assertThat(plans).extracting(SlowQueryExplainer.SlowQueryPlan::getOrigin)
+                    .contains("MemberRepository.findByAge", "MemberJpaRepository.findByUsernameAndAgeGreaterThan");
+            SlowQueryExplainer.SlowQueryPlan findByUsername = plans.stream()
+                    .filter(plan -> plan.getOrigin().equals("MemberJpaRepository.findByUsernameAndAgeGreaterThan"))
+                    .findFirst().orElseThrow();
+            Assertions.assertThat(findByUsername.getParameters()).containsExactly("slowQueryMember", "10");
+            Assertions.assertThat(findByUsername.getError()).isNull();
+            Assertions.assertThat(findByUsername.getPlan()).containsIgnoringCase("member");
+        } finally {
+            memberRepository.delete(member);
+        }
+    }
+
+    // EXPLAIN은 다른 스레드에서 실행된다.
+    private List<SlowQueryExplainer.SlowQueryPlan> awaitPlans(String... origins) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        List<SlowQueryExplainer.SlowQueryPlan> plans = slowQueryExplainer.plans();
+        while (!containsOrigins(plans, origins) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            plans = slowQueryExplainer.plans();
+        }
+        return plans;
+    }
+
+    private boolean containsOrigins(List<SlowQueryExplainer.SlowQueryPlan> plans, String... origins) {
+        Set<String> found = plans.stream().map(SlowQueryExplainer.SlowQueryPlan::getOrigin).collect(Collectors.toSet());
+        return found.containsAll(Arrays.asList(origins));
+    }
+}
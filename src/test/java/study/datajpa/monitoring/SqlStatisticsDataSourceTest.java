@@ -0,0 +1,180 @@
+package study.datajpa.monitoring;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+// slow-threshold를 0으로 두면 모든 SQL의 바인딩 파라미터가 보관된다.
+@SpringBootTest(properties = {"datajpa.sql.slow-threshold=0ms", "datajpa.sql.slow-top-n=1000"})
+class SqlStatisticsDataSourceTest {
+
+    private static final String USERNAME = "sqlStatsMember";
+
+    @Autowired DataSource dataSource;
+    @Autowired SqlStatistics sqlStatistics;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MeterRegistry meterRegistry;
+
+    private final List<Member> saved = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        saved.add(memberRepository.save(new Member(USERNAME, 10)));
+        saved.add(memberRepository.save(new Member(USERNAME, 20)));
+        sqlStatistics.reset();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch(saved);
+    }
+
+    @Test
+    public void repositoryQuery() {
+        // when
+        List<Member> result = memberRepository.findByUsername(USERNAME);
+
+        // then
+        // 바인딩 값은 ?로 남아있으므로 지문 하나에 호출 수와 ResultSet.next()로 읽은 row 수가 기록된다.
+        Assertions.assertThat(result).hasSize(2);
+        SqlStatistics.StatementSummary summary = summary("username");
+        Assertions.assertThat(summary.getFingerprint()).startsWith("select");
+        Assertions.assertThat(summary.getCalls()).isEqualTo(1);
+        Assertions.assertThat(summary.getRows()).isEqualTo(2);
+    }
+
+    @Test
+    public void countRowsFromGetResultSet() throws Exception {
+        // given
+        String sql = "select member_id from member where username = '" + USERNAME + "'";
+
+        // when
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            // execute(sql)는 ResultSet을 반환하지 않으므로 getResultSet()으로 받은 ResultSet에서 센다.
+            statement.execute(sql);
+            try (ResultSet resultSet = statement.getResultSet()) {
+                while (resultSet.next()) {
+                    resultSet.getLong(1);
+                }
+            }
+        }
+
+        // then
+        SqlStatistics.StatementSummary summary = summary("member_id from member");
+        Assertions.assertThat(summary.getCalls()).isEqualTo(1);
+        Assertions.assertThat(summary.getRows()).isEqualTo(2);
+    }
+
+    @Test
+    public void captureBindParameters() throws Exception {
+        // given
+        String sql = "select count(*) from member where username = ? or username = ?";
+
+        // when
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, USERNAME);
+            statement.setNull(2, Types.VARCHAR);
+            statement.executeQuery().close();
+
+            statement.clearParameters();
+            statement.setString(1, "other");
+            statement.setString(2, USERNAME);
+            statement.executeQuery().close();
+        }
+
+        // then
+        // setNull은 null로, clearParameters 뒤에는 새로 바인딩한 값만 남는다.
+        Assertions.assertThat(slowStatements(sql)).extracting(SqlStatistics.SlowStatement::getParameters)
+                .containsExactlyInAnyOrder(List.of(USERNAME, "null"), List.of("other", USERNAME));
+        Assertions.assertThat(summary("count(*) from member").getCalls()).isEqualTo(2);
+    }
+
+    @Test
+    public void batchUpdate() throws Exception {
+        // given
+        String sql = "update member set age = ? where member_id = ?";
+
+        // when
+        int[] counts;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Member member : saved) {
+                statement.setInt(1, 30);
+                statement.setLong(2, member.getId());
+                statement.addBatch();
+            }
+            counts = statement.executeBatch();
+        }
+
+        // then
+        // 배치는 executeBatch 한번이 호출 하나이고, row 수는 배치 결과의 합계다. 파라미터는 마지막으로 바인딩한 값이 남는다.
+        Assertions.assertThat(counts).containsExactly(1, 1);
+        SqlStatistics.StatementSummary summary = summary("update member set age");
+        Assertions.assertThat(summary.getCalls()).isEqualTo(1);
+        Assertions.assertThat(summary.getRows()).isEqualTo(2);
+        Assertions.assertThat(slowStatements(sql)).extracting(SqlStatistics.SlowStatement::getParameters)
+                .containsExactly(List.of("30", String.valueOf(saved.get(1).getId())));
+    }
+
+    @Test
+    public void unwrap() throws Exception {
+        // given
+        DataSource original = SqlStatisticsDataSource.unwrap(dataSource);
+
+        // when
+        try (Connection connection = original.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeQuery("select count(*) from member where member_id < 0").close();
+        }
+
+        // then
+        // 감싼 DataSource도 unwrap으로 커넥션 풀을 꺼낼 수 있어서 HikariCP 메트릭이 그대로 등록된다.
+        Assertions.assertThat(Proxy.isProxyClass(dataSource.getClass())).isTrue();
+        Assertions.assertThat(dataSource.isWrapperFor(HikariDataSource.class)).isTrue();
+        Assertions.assertThat(dataSource.unwrap(HikariDataSource.class)).isSameAs(original);
+        Assertions.assertThat(meterRegistry.find("hikaricp.connections").gauge()).isNotNull();
+        // 감싸기 전 DataSource에서 실행한 SQL은 기록하지 않는다.
+        Assertions.assertThat(sqlStatistics.summaries("calls", 100))
+                .noneMatch(summary -> summary.getFingerprint().contains("member_id < ?"));
+    }
+
+    private SqlStatistics.StatementSummary summary(String fingerprintPart) {
+        List<SqlStatistics.StatementSummary> summaries = new ArrayList<>();
+        for (SqlStatistics.StatementSummary summary : sqlStatistics.summaries("calls", 100)) {
+            if (summary.getFingerprint().contains(fingerprintPart)) {
+                summaries.add(summary);
+            }
+        }
+        Assertions.assertThat(summaries).hasSize(1);
+        return summaries.get(0);
+    }
+
+    private List<SqlStatistics.SlowStatement> slowStatements(String sql) {
+        List<SqlStatistics.SlowStatement> result = new ArrayList<>();
+        for (SqlStatistics.SlowStatement statement : sqlStatistics.slowStatements()) {
+            if (statement.getSql().equals(sql)) {
+                result.add(statement);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+package study.datajpa.monitoring;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+class SqlStatisticsTest {
+
+    @Test
+    public void fingerprint() {
+        // given
+        String sql1 = "select m.id, m.username from member m where m.username = 'kim' and m.age > 10 and m.id in (1, 2, 3)";
+        String sql2 = "SELECT m.id,  m.username\n  FROM member m /* comment */ WHERE m.username = 'it''s' AND m.age > 20 AND m.id IN (?, ?)";
+
+        // when
+        String fingerprint1 = SqlFingerprint.of(sql1);
+        String fingerprint2 = SqlFingerprint.of(sql2);
+
+        // then
+        Assertions.assertThat(fingerprint1)
+                .isEqualTo("select m.id, m.username from member m where m.username = ? and m.age > ? and m.id in (?...)");
+        Assertions.assertThat(fingerprint2).isEqualTo(fingerprint1);
+        // 식별자 안의 숫자는 바꾸지 않는다.
+        Assertions.assertThat(SqlFingerprint.of("select member0_.id as id1_0_ from member member0_"))
+                .isEqualTo("select member0_.id as id1_0_ from member member0_");
+    }
+
+    @Test
+    public void aggregateByFingerprint() {
+        // given
+        SqlStatistics statistics = new SqlStatistics(Duration.ofMillis(100), 20);
+
+        // when
+        statistics.record("select * from member where age = 10", millis(2), 3, Collections::emptyList);
+        statistics.record("select * from member where age = 20", millis(4), 5, Collections::emptyList);
+        statistics.record("update member set age = ? where id = ?", millis(1), 1, Collections::emptyList);
+
+        // then
+        List<SqlStatistics.StatementSummary> summaries = statistics.summaries("calls", 10);
+        Assertions.assertThat(summaries).hasSize(2);
+        SqlStatistics.StatementSummary select = summaries.get(0);
+        Assertions.assertThat(select.getFingerprint()).isEqualTo("select * from member where age = ?");
+        Assertions.assertThat(select.getCalls()).isEqualTo(2);
+        Assertions.assertThat(select.getRows()).isEqualTo(8);
+        Assertions.assertThat(select.getTotalTimeMs()).isEqualTo(6.0);
+        Assertions.assertThat(select.getMaxTimeMs()).isEqualTo(4.0);
+        Assertions.assertThat(select.getMeanTimeMs()).isEqualTo(3.0);
+        Assertions.assertThatThrownBy(() -> statistics.summaries("unknown", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void keepSlowestStatements() {
+        // given
+        SqlStatistics statistics = new SqlStatistics(Duration.ofMillis(100), 3);
+
+        // when
+        statistics.record("select * from member where id = ?", millis(50), 1, () -> {
+            throw new AssertionError("threshold 보다 빠른 SQL은 파라미터를 꺼내지 않는다.");
+        });
+        for (int i = 1; i <= 5; i++) {
+            long id = i;
+            statistics.record("select * from member where id = ?", millis(100 * i), 1, () -> Arrays.asList(id));
+        }
+
+        // then
+        List<SqlStatistics.SlowStatement> slowStatements = statistics.slowStatements();
+        Assertions.assertThat(slowStatements).extracting(SqlStatistics.SlowStatement::getElapsedMs)
+                .containsExactly(500.0, 400.0, 300.0);
+        Assertions.assertThat(slowStatements.stream().map(SqlStatistics.SlowStatement::getParameters).collect(Collectors.toList()))
+                .containsExactly(Arrays.asList("5"), Arrays.asList("4"), Arrays.asList("3"));
+
+        statistics.reset();
+        Assertions.assertThat(statistics.slowStatements()).isEmpty();
+        Assertions.assertThat(statistics.summaries(null, 10)).isEmpty();
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
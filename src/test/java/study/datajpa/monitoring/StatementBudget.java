@@ -0,0 +1,33 @@
+package study.datajpa.monitoring;
+
+import java.util.Map;
+
+/*
+*   테스트에서 SQL 실행 횟수를 검증할 때 사용한다.
+*   ex) StatementBudget.expectAtMost(1, () -> memberRepository.findMemberFetchJoin());
+* */
+public final class StatementBudget {
+
+    private StatementBudget() {
+    }
+
+    public static void expectAtMost(int budget, Runnable action) {
+        try (StatementScope scope = StatementScope.open("budget")) {
+            action.run();
+            if (scope.getCount() > budget) {
+                throw new AssertionError(message(budget, scope));
+            }
+        }
+    }
+
+    private static String message(int budget, StatementScope scope) {
+        StringBuilder message = new StringBuilder()
+                .append("SQL 실행 횟수가 예산을 초과했습니다. budget = ").append(budget)
+                .append(", actual = ").append(scope.getCount());
+        for (Map.Entry<String, Integer> entry : scope.getStatements().entrySet()) {
+            message.append(System.lineSeparator())
+                    .append("  [").append(entry.getValue()).append("] ").append(entry.getKey());
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package study.datajpa.projection;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+
+// 기본 설정(datajpa.projection.compiled=false)은 리포지토리 테스트가 검증하므로 여기서는 팩토리만 직접 만들어서 검증한다.
+class CompiledProjectionFactoryTest {
+
+    private final CompiledProjectionFactory factory = new CompiledProjectionFactory();
+
+    interface SortedNames {
+        SortedSet<String> getNames();
+    }
+
+    @Test
+    public void compiledProjections() {
+        // given
+        Member member = new Member("compiledMember", 10, new Team("compiledTeam"));
+
+        // when
+        UsernameOnly usernameOnly = factory.createProjection(UsernameOnly.class, member);
+        NestedClosedProjections nested = factory.createProjection(NestedClosedProjections.class, member);
+
+        // then
+        // JDK 프록시가 아닌 미리 만든 클래스로 반환된다. (@Value SpEL, 중첩 프로젝션 포함)
+        Assertions.assertThat(Proxy.isProxyClass(usernameOnly.getClass())).isFalse();
+        Assertions.assertThat(usernameOnly.getUsername()).isEqualTo("compiledMember 10");
+        Assertions.assertThat(Proxy.isProxyClass(nested.getClass())).isFalse();
+        Assertions.assertThat(Proxy.isProxyClass(nested.getTeam().getClass())).isFalse();
+        Assertions.assertThat(nested.getUsername()).isEqualTo("compiledMember");
+        Assertions.assertThat(nested.getTeam().getName()).isEqualTo("compiledTeam");
+    }
+
+    @Test
+    public void compiledProjectionsFromMap() {
+        // given
+        // ProjectionSelect는 선택한 컬럼을 Map(중첩 프로젝션은 중첩된 Map)으로 넘긴다.
+        Map<String, Object> source = Map.of("username", "compiledMember", "team", Map.of("name", "compiledTeam"));
+
+        // when
+        NestedClosedProjections nested = factory.createProjection(NestedClosedProjections.class, source);
+
+        // then
+        Assertions.assertThat(Proxy.isProxyClass(nested.getClass())).isFalse();
+        Assertions.assertThat(nested.getUsername()).isEqualTo("compiledMember");
+        Assertions.assertThat(nested.getTeam().getName()).isEqualTo("compiledTeam");
+    }
+
+    @Test
+    public void fallBackForUnsupportedCollections() {
+        // when
+        SortedNames names = factory.createProjection(SortedNames.class, Map.of("names", List.of("b", "a")));
+
+        // then
+        // ArrayList/LinkedHashSet으로 만들 수 없는 컬렉션 타입은 프록시로 처리한다.
+        Assertions.assertThat(Proxy.isProxyClass(names.getClass())).isTrue();
+        Assertions.assertThat(names.getNames()).containsExactly("a", "b");
+    }
+}
@@ -0,0 +1,73 @@
+package study.datajpa.repository;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// 트랜잭션 밖에서 호출해야 나눈 조회가 동시에 실행되므로 테스트에 @Transactional을 붙이지 않는다.
+@SpringBootTest(properties = "datajpa.in-query.max-chunk-size=4")
+class InQueryExecutorTest {
+
+    @Autowired InQueryExecutor inQueryExecutor;
+    @Autowired MemberRepository memberRepository;
+
+    private final List<Member> saved = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch(saved);
+    }
+
+    @Test
+    public void padAndSplit() {
+        // given
+        List<Integer> values = IntStream.rangeClosed(1, 10).boxed().collect(Collectors.toList());
+        List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<>());
+
+        // when
+        inQueryExecutor.execute(values, chunk -> {
+            chunkSizes.add(chunk.size());
+            return Collections.emptyList();
+        });
+
+        // then
+        // 10개 -> 4, 4, 2(2의 제곱수) 로 나눠서 조회한다.
+        Assertions.assertThat(chunkSizes).containsExactlyInAnyOrder(4, 4, 2);
+        chunkSizes.clear();
+        inQueryExecutor.execute(List.of(1, 2, 3), chunk -> {
+            chunkSizes.add(chunk.size());
+            Assertions.assertThat(chunk).containsExactly(1, 2, 3, 3);
+            return Collections.emptyList();
+        });
+        Assertions.assertThat(chunkSizes).containsExactly(4);
+    }
+
+    @Test
+    public void findAllByIdAndNames() {
+        // given
+        for (int i = 0; i < 10; i++) {
+            saved.add(memberRepository.save(new Member("inQueryMember" + i, i)));
+        }
+        List<Long> ids = saved.stream().map(Member::getId).collect(Collectors.toList());
+        List<Long> idsWithDuplicates = new ArrayList<>(ids);
+        idsWithDuplicates.addAll(ids.subList(0, 3));
+
+        // when
+        List<Member> byIds = memberRepository.findAllById(idsWithDuplicates);
+        List<Member> byNames = memberRepository.findByNames(
+                saved.stream().map(Member::getUsername).collect(Collectors.toList()));
+
+        // then
+        Assertions.assertThat(byIds).extracting(Member::getId).containsExactlyInAnyOrderElementsOf(ids);
+        Assertions.assertThat(byNames).extracting(Member::getId).containsExactlyInAnyOrderElementsOf(ids);
+    }
+}
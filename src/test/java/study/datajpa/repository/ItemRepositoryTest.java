@@ -1,14 +1,27 @@
 package study.datajpa.repository;
 
+import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import study.datajpa.auditing.AuditClock;
 import study.datajpa.entity.Item;
+import study.datajpa.monitoring.SqlStatistics;
+
+import javax.persistence.EntityManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @SpringBootTest
 public class ItemRepositoryTest {
 
     @Autowired ItemRepository itemRepository;
+    @Autowired SqlStatistics sqlStatistics;
 
     @Test
     public void save() {
@@ -16,4 +29,80 @@ public class ItemRepositoryTest {
 
         itemRepository.save(item);
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void insertIgnoreAllWithoutRowCounts() {
+        // given
+        // 배치 결과로 건수 대신 SUCCESS_NO_INFO를 주는 드라이버
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        Mockito.when(jdbcTemplate.batchUpdate(Mockito.anyString(), Mockito.anyCollection(), Mockito.anyInt(),
+                        Mockito.any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1, Statement.SUCCESS_NO_INFO}});
+        ItemRepositoryImpl repository = new ItemRepositoryImpl(Mockito.mock(EntityManager.class), jdbcTemplate, new AuditClock(false));
+
+        // when, then
+        Assertions.assertThatThrownBy(() -> repository.insertIgnoreAll(items("noInfo", 2)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void insertIgnoreAll() {
+        // given
+        List<Item> items = items("ignore", 100);
+
+        try {
+            // when
+            int inserted = itemRepository.insertIgnoreAll(items);
+            // 이미 있는 id는 무시된다.
+            int insertedAgain = itemRepository.insertIgnoreAll(items);
+
+            // then
+            Assertions.assertThat(inserted).isEqualTo(100);
+            Assertions.assertThat(insertedAgain).isZero();
+            Assertions.assertThat(itemRepository.findAllById(ids(items))).hasSize(100);
+        } finally {
+            itemRepository.deleteAllByIdInBatch(ids(items));
+        }
+    }
+
+    @Test
+    public void insertIgnoreAllSingleBatch() {
+        // given
+        List<Item> items = items("batch", 1_000);
+        sqlStatistics.reset();
+
+        try {
+            // when
+            int inserted = itemRepository.insertIgnoreAll(items);
+
+            // then
+            // save()처럼 건마다 select/insert 하지 않고 merge 문 하나를 JDBC 배치 한번으로 보낸다. (처리량 비교는 ItemIdBenchmark)
+            Assertions.assertThat(inserted).isEqualTo(1_000);
+            List<SqlStatistics.StatementSummary> summaries = sqlStatistics.summaries("calls", 100);
+            Assertions.assertThat(summaries).filteredOn(summary -> summary.getFingerprint().startsWith("merge into item"))
+                    .singleElement()
+                    .satisfies(summary -> {
+                        Assertions.assertThat(summary.getCalls()).isEqualTo(1);
+                        Assertions.assertThat(summary.getRows()).isEqualTo(1_000);
+                    });
+            Assertions.assertThat(summaries).noneMatch(summary -> summary.getFingerprint().contains("from item"));
+        } finally {
+            itemRepository.deleteAllByIdInBatch(ids(items));
+        }
+    }
+
+    private List<Item> items(String prefix, int count) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new Item(prefix + i));
+        }
+        return items;
+    }
+
+    private List<String> ids(List<Item> items) {
+        return items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+    }
 }
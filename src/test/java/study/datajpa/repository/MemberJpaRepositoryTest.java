@@ -7,7 +7,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.monitoring.SqlStatistics;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @SpringBootTest
@@ -17,6 +20,8 @@ class MemberJpaRepositoryTest {
 
     @Autowired MemberJpaRepository memberJpaRepository;
     @Autowired MemberRepository memberRepository;
+    @Autowired TeamJpaRepository teamJpaRepository;
+    @Autowired SqlStatistics sqlStatistics;
 
     @Test
     public void testMember() {
@@ -130,4 +135,54 @@ class MemberJpaRepositoryTest {
         // then
         Assertions.assertThat(result).isEqualTo(3);
     }
+
+    @Test
+    public void saveAllBatched() {
+        // given
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            teams.add(new Team("team" + i));
+        }
+        teamJpaRepository.saveAllBatched(teams, 5);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            members.add(new Member("batch" + i, i % 50, teams.get(i % teams.size())));
+        }
+
+        // when
+        long before = memberJpaRepository.count();
+        int saved = memberJpaRepository.saveAllBatched(members, 100);
+
+        // then
+        Assertions.assertThat(saved).isEqualTo(1_000);
+        Assertions.assertThat(memberJpaRepository.count()).isEqualTo(before + 1_000);
+        Assertions.assertThat(members).allMatch(member -> member.getId() != null);
+    }
+
+    @Test
+    @Rollback
+    public void saveAllBatchedStatements() {
+        // given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            members.add(new Member("batchStatement" + i, i % 100));
+        }
+        sqlStatistics.reset();
+
+        // when
+        memberJpaRepository.saveAllBatched(members, 100);
+
+        // then
+        // batchSize마다 flush 하므로 insert는 executeBatch 3번(100, 100, 50)으로 나가고 row는 250개다.
+        List<SqlStatistics.StatementSummary> inserts = new ArrayList<>();
+        for (SqlStatistics.StatementSummary summary : sqlStatistics.summaries("calls", 100)) {
+            if (summary.getFingerprint().startsWith("insert into member ")) {
+                inserts.add(summary);
+            }
+        }
+        Assertions.assertThat(inserts).hasSize(1);
+        Assertions.assertThat(inserts.get(0).getCalls()).isEqualTo(3);
+        Assertions.assertThat(inserts.get(0).getRows()).isEqualTo(250);
+    }
 }
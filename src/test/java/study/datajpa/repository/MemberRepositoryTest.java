@@ -1,6 +1,11 @@
 package study.datajpa.repository;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,16 +15,33 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.auditing.AuditClock;
+import study.datajpa.dto.InvalidCursorException;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.monitoring.StatementBudget;
+import study.datajpa.monitoring.StatementScope;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @SpringBootTest
 @Transactional
@@ -29,6 +51,9 @@ class MemberRepositoryTest {
     @Autowired MemberRepository memberRepository;
     @Autowired TeamRepository teamRepository;
     @PersistenceContext EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired AuditClock auditClock;
 
     @Test
     public void testMember() {
@@ -230,6 +255,80 @@ class MemberRepositoryTest {
         Assertions.assertThat(members.hasNext()).isTrue();
     }
 
+    @Test
+    public void cachedCount() {
+        // given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 10));
+        memberRepository.save(new Member("member3", 10));
+        memberRepository.save(new Member("member4", 10));
+        em.flush();
+
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username"));
+
+        // when
+        // 쓰기가 없으면 두 번째 요청부터는 캐시된 TotalCount를 사용한다.
+        List<Page<Member>> pages = new ArrayList<>();
+        long firstCountQueries = countQueries(() -> pages.add(memberRepository.findByAge(10, pageRequest, CountStrategy.CACHED)));
+        long cachedCountQueries = countQueries(() -> pages.add(memberRepository.findByAge(10, pageRequest, CountStrategy.CACHED)));
+
+        // insert SQL이 실행되면 member 테이블의 카운트 캐시가 무효화된다.
+        memberRepository.save(new Member("member5", 10));
+        em.flush();
+        long afterInsertCountQueries = countQueries(() -> pages.add(memberRepository.findByAge(10, pageRequest, CountStrategy.CACHED)));
+
+        // 벌크 연산도 SQL은 Hibernate를 거치기 때문에 무효화된다.
+        memberRepository.bulkAgePlus(0);
+        long afterBulkCountQueries = countQueries(() -> pages.add(memberRepository.findByAge(10, pageRequest, CountStrategy.CACHED)));
+
+        // then
+        Assertions.assertThat(firstCountQueries).isEqualTo(1);
+        Assertions.assertThat(cachedCountQueries).isZero();
+        Assertions.assertThat(afterInsertCountQueries).isEqualTo(1);
+        Assertions.assertThat(afterBulkCountQueries).isEqualTo(1);
+
+        Page<Member> first = pages.get(0);
+        Page<Member> cached = pages.get(1);
+        Page<Member> afterInsert = pages.get(2);
+        Page<Member> afterBulk = pages.get(3);
+        Assertions.assertThat(cached.getTotalElements()).isEqualTo(first.getTotalElements());
+        Assertions.assertThat(afterInsert.getTotalElements()).isEqualTo(first.getTotalElements() + 1);
+        Assertions.assertThat(afterBulk.getTotalElements()).isEqualTo(afterInsert.getTotalElements());
+        Assertions.assertThat(afterInsert.getTotalElements())
+                .isEqualTo(memberRepository.findByAge(10, pageRequest, CountStrategy.EXACT).getTotalElements());
+    }
+
+    // action에서 실행된 카운트 쿼리 수
+    private long countQueries(Runnable action) {
+        try (StatementScope scope = StatementScope.open("count")) {
+            action.run();
+            return scope.getStatements().entrySet().stream()
+                    .filter(statement -> statement.getKey().toLowerCase().contains("count("))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+    }
+
+    @Test
+    public void estimatedCount() {
+        // given
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 0, teamA));
+        em.persist(new Member("member2", 0, teamA));
+        em.flush();
+        em.clear();
+
+        // when
+        Page<MemberProjection> result = memberRepository.findByNativeProjection(PageRequest.of(0, 1), CountStrategy.ESTIMATED);
+
+        // then
+        // 추정치는 정확하지 않을 수 있지만 현재 페이지까지의 row 수보다 작게 나오지는 않는다.
+        Assertions.assertThat(result.getContent()).hasSize(1);
+        Assertions.assertThat(result.getContent().get(0).getUsername()).isNotNull();
+        Assertions.assertThat(result.getTotalElements()).isGreaterThanOrEqualTo(1);
+    }
+
     @Test
     public void slice() {
         // given
@@ -261,6 +360,40 @@ class MemberRepositoryTest {
         Assertions.assertThat(members.hasNext()).isTrue();
     }
 
+    @Test
+    public void keysetPaging() {
+        // given
+        Member member1 = memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 10));
+        memberRepository.save(new Member("member3", 10));
+        memberRepository.save(new Member("member4", 10));
+        memberRepository.save(new Member("member5", 10));
+
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.ASC, "id"));
+
+        // when
+        // 커서는 마지막으로 조회한 id만 기억하고, 다음 페이지는 id > 커서 조건으로 조회한다.
+        Slice<Member> firstPage = memberRepository.findByIdGreaterThan(member1.getId() - 1, pageRequest);
+        MemberCursor cursor = MemberCursor.decode(
+                MemberCursor.after(firstPage.getContent().get(2).getId()).encode());
+        Slice<Member> secondPage = memberRepository.findByIdGreaterThan(cursor.getLastId(), pageRequest);
+
+        // then
+        Assertions.assertThat(firstPage.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        Assertions.assertThat(firstPage.hasNext()).isTrue();
+        Assertions.assertThat(secondPage.getContent()).extracting("username")
+                .startsWith("member4", "member5");
+        Assertions.assertThat(secondPage.getContent())
+                .allMatch(member -> member.getId() > cursor.getLastId());
+    }
+
+    @Test
+    public void invalidCursor() {
+        Assertions.assertThatThrownBy(() -> MemberCursor.decode("not-a-cursor"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
     @Test
     public void selectListLimit() {
         // given
@@ -305,6 +438,31 @@ class MemberRepositoryTest {
         Assertions.assertThat(result).isEqualTo(3);
     }
 
+    @Test
+    public void streamMemberDto() {
+        // given
+        Team teamA = new Team("TeamA");
+        teamRepository.save(teamA);
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20));
+        em.flush();
+        em.clear();
+
+        long total = memberRepository.count();
+        AtomicLong streamed = new AtomicLong();
+
+        // when
+        // Stream은 트랜잭션 안에서 사용해야 하고, 커넥션을 반납하도록 try-with-resources로 닫아준다.
+        try (Stream<MemberDto> members = memberRepository.streamMemberDto(2)) {
+            members.forEach(dto -> streamed.incrementAndGet());
+        }
+
+        // then
+        Assertions.assertThat(streamed.get()).isEqualTo(total);
+        // DTO로 조회했기 때문에 영속성 컨텍스트에 엔티티가 쌓이지 않는다.
+        Assertions.assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
     @Test
     public void findMemberLazy() {
         // given
@@ -337,6 +495,245 @@ class MemberRepositoryTest {
 
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 2차 캐시는 트랜잭션이 끝나야 다른 트랜잭션에서 보이므로 트랜잭션을 나눠서 검증한다.
+    public void secondLevelCache() {
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        Member saved = tx.execute(status -> {
+            Team team = teamRepository.save(new Team("cachedTeam"));
+            return memberRepository.save(new Member("cachedMember", 30, team));
+        });
+
+        try {
+            tx.executeWithoutResult(status -> memberRepository.findById(saved.getId()).get().getTeam().getName());
+
+            // when
+            statistics.clear();
+            String teamName = tx.execute(status -> memberRepository.findById(saved.getId()).get().getTeam().getName());
+            long hitsBeforeBulk = statistics.getSecondLevelCacheHitCount();
+
+            // 벌크 연산은 엔티티 이벤트 없이 DB를 직접 수정하지만, Hibernate가 Member 캐시 영역을 비워준다.
+            tx.executeWithoutResult(status -> memberRepository.bulkAgePlus(30));
+
+            statistics.clear();
+            int ageAfterBulk = tx.execute(status -> memberRepository.findById(saved.getId()).get().getAge());
+
+            // then
+            Assertions.assertThat(teamName).isEqualTo("cachedTeam");
+            Assertions.assertThat(hitsBeforeBulk).isGreaterThanOrEqualTo(2); // Member, Team 모두 캐시에서 조회
+            Assertions.assertThat(statistics.getSecondLevelCacheMissCount()).isGreaterThanOrEqualTo(1);
+            Assertions.assertThat(ageAfterBulk).isEqualTo(31);
+        } finally {
+            tx.executeWithoutResult(status -> {
+                Member member = memberRepository.findById(saved.getId()).get();
+                Team team = member.getTeam();
+                memberRepository.delete(member);
+                teamRepository.delete(team);
+            });
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // @Async 메서드는 다른 스레드에서 실행되므로 커밋된 데이터만 조회할 수 있다.
+    public void asyncQuery() throws Exception {
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Member saved = tx.execute(status -> {
+            Team team = teamRepository.save(new Team("asyncTeam"));
+            return memberRepository.save(new Member("asyncMember", 10, team));
+        });
+
+        try {
+            // when
+            List<CompletableFuture<MemberDto>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(memberRepository.findAsyncMemberDtoById(saved.getId()));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            MemberDto notFound = memberRepository.findAsyncMemberDtoById(-1L).get(10, TimeUnit.SECONDS);
+
+            // then
+            for (CompletableFuture<MemberDto> future : futures) {
+                Assertions.assertThat(future.get().getUsername()).isEqualTo("asyncMember");
+                Assertions.assertThat(future.get().getTeamName()).isEqualTo("asyncTeam");
+            }
+            Assertions.assertThat(notFound).isNull();
+        } finally {
+            tx.executeWithoutResult(status -> {
+                Member member = memberRepository.findById(saved.getId()).get();
+                Team team = member.getTeam();
+                memberRepository.delete(member);
+                teamRepository.delete(team);
+            });
+        }
+    }
+
+    @Test
+    public void statementBudget() {
+        // given
+        Team teamA = new Team("TeamA");
+        Team teamB = new Team("TeamB");
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 10, teamB));
+        em.flush();
+        em.clear();
+
+        // when & then
+        // fetch join은 Team까지 한번에 조회하므로 SQL 1번
+        StatementBudget.expectAtMost(1, () -> memberRepository.findMemberFetchJoin()
+                .forEach(member -> member.getTeam().getName()));
+        em.clear();
+
+        // 지연 로딩은 Team을 조회하는 SQL이 추가로 나가므로(batch fetch로 묶여도 1 + 1) 예산을 초과한다.
+        Assertions.assertThatThrownBy(() -> StatementBudget.expectAtMost(1, () -> memberRepository.findMemberCustom()
+                        .forEach(member -> member.getTeam().getName())))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("budget = 1");
+    }
+
+    @Test
+    public void repeatedStatements() {
+        // given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(memberRepository.save(new Member("repeated" + i, 10)).getId());
+        }
+        em.flush();
+        em.clear();
+
+        // when
+        // 지연 로딩은 batch fetch로 묶이므로 반복문 안에서 한건씩 조회하는 코드로 N + 1을 만든다.
+        try (StatementScope scope = StatementScope.open("test")) {
+            ids.forEach(id -> memberRepository.findById(id).get().getUsername());
+
+            // then
+            // 파라미터만 다른 Member 조회 SQL이 반복된다.
+            Assertions.assertThat(scope.getRepeatedStatements(3)).isNotEmpty();
+        }
+    }
+
+    @Test
+    public void batchFetch() {
+        // given
+        List<Long> teamIds = new ArrayList<>();
+        List<Long> memberIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Team team = teamRepository.save(new Team("batchTeam" + i));
+            teamIds.add(team.getId());
+            for (int j = 0; j < 5; j++) {
+                memberIds.add(memberRepository.save(new Member("batchMember" + i + "_" + j, j, team)).getId());
+            }
+        }
+        em.flush();
+        em.clear();
+        SessionFactory sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+
+        // when & then
+        // 팀 20개의 members 컬렉션 -> 팀 조회 1번 + 회원 조회 1번 (@BatchSize(size = 50))
+        try (StatementScope scope = StatementScope.open("team -> members")) {
+            teamRepository.findAllById(teamIds)
+                    .forEach(team -> Assertions.assertThat(team.getMembers()).hasSize(5));
+            Assertions.assertThat(scope.getCount()).isEqualTo(2);
+        }
+        em.clear();
+        sessionFactory.getCache().evictAllRegions();
+
+        // 회원 100명의 team 프록시 -> 회원 조회 1번 + 팀 조회 1번 (default_batch_fetch_size = 100)
+        try (StatementScope scope = StatementScope.open("member -> team")) {
+            memberRepository.findAllById(memberIds)
+                    .forEach(member -> Assertions.assertThat(member.getTeam().getName()).startsWith("batchTeam"));
+            Assertions.assertThat(scope.getCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void cachedAuditing() {
+        // given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            members.add(memberRepository.save(new Member("auditMember" + i, 50)));
+        }
+        em.flush();
+
+        // when
+        int updated = memberRepository.bulkAgePlusAudited(50);
+        List<Member> result = memberRepository.findAllById(members.stream().map(Member::getId).collect(Collectors.toList()));
+
+        // then
+        // datajpa.auditing.cached=true -> 같은 트랜잭션은 등록자가 같고, 같은 flush로 저장된 엔티티는 등록일이 같다.
+        Assertions.assertThat(updated).isGreaterThanOrEqualTo(3);
+        Assertions.assertThat(result).extracting(Member::getCreatedBy).containsOnly(result.get(0).getCreatedBy());
+        Assertions.assertThat(result).extracting(Member::getCreatedDate).containsOnly(result.get(0).getCreatedDate());
+        // 벌크 연산도 수정자/수정일을 갱신한다.
+        Assertions.assertThat(result).extracting(Member::getLastModifiedBy).containsOnly(result.get(0).getCreatedBy());
+        Assertions.assertThat(result).extracting(Member::getAge).containsOnly(51);
+    }
+
+    @Test
+    public void auditClockRequiresNew() {
+        // given
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        LocalDateTime outer = auditClock.now();
+
+        // when
+        LocalDateTime inner = requiresNew.execute(status -> auditClock.now());
+
+        // then
+        // 새 트랜잭션은 시간을 따로 가지고, 끝난 뒤에도 바깥 트랜잭션은 같은 시간을 계속 사용한다.
+        Assertions.assertThat(inner).isNotSameAs(outer);
+        Assertions.assertThat(auditClock.now()).isSameAs(outer);
+    }
+
+    @Test
+    public void repositoryMetrics() {
+        // given
+        memberRepository.save(new Member("metricsMember", 10));
+        memberRepository.save(new Member("metricsMember", 20));
+        em.flush();
+        em.clear();
+        double rowsBefore = summaryTotal("repository.rows");
+        double entitiesBefore = summaryTotal("repository.entities");
+
+        // when
+        List<Member> result = memberRepository.findByUsername("metricsMember");
+
+        // then
+        // 리포지토리 프록시를 거친 호출은 메서드 이름으로 태그가 붙는다.
+        Assertions.assertThat(result).hasSize(2);
+        Assertions.assertThat(summaryTotal("repository.rows") - rowsBefore).isEqualTo(2);
+        Assertions.assertThat(summaryTotal("repository.entities") - entitiesBefore).isEqualTo(2);
+        Assertions.assertThat(meterRegistry.get("repository.statements")
+                .tag("repository", "MemberRepository").tag("method", "findByUsername(String)")
+                .summary().max()).isGreaterThanOrEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("repository.invocations")
+                .tag("repository", "MemberRepository").tag("method", "findByUsername(String)").tag("outcome", "success")
+                .timer().count()).isPositive();
+
+        // 오버로딩된 메서드는 파라미터 타입으로 구분한다.
+        memberRepository.findProjectionsByUsername("metricsMember");
+        memberRepository.findProjectionsByUsername("metricsMember", UsernameOnly.class);
+        Assertions.assertThat(meterRegistry.get("repository.invocations")
+                .tag("repository", "MemberRepository").tag("method", "findProjectionsByUsername(String)").tag("outcome", "success")
+                .timer().count()).isPositive();
+        Assertions.assertThat(meterRegistry.get("repository.invocations")
+                .tag("repository", "MemberRepository").tag("method", "findProjectionsByUsername(String,Class)").tag("outcome", "success")
+                .timer().count()).isPositive();
+    }
+
+    private double summaryTotal(String name) {
+        DistributionSummary summary = meterRegistry.find(name)
+                .tag("repository", "MemberRepository").tag("method", "findByUsername(String)")
+                .summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+
     @Test
     public void queryHint() {
         // given
@@ -466,6 +863,46 @@ class MemberRepositoryTest {
 
     }
 
+    @Test
+    public void nestedProjectionColumns() {
+        // given
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+        Team unnamed = new Team(null);
+        em.persist(unnamed);
+        em.persist(new Member("prunedMember", 10, teamA));
+        em.persist(new Member("prunedMember", 20));
+        em.persist(new Member("prunedMember", 30, unnamed));
+        em.flush();
+        em.clear();
+
+        // when
+        List<NestedClosedProjections> result;
+        String sql;
+        try (StatementScope scope = StatementScope.open("test")) {
+            result = memberRepository.findProjectionsByUsername("prunedMember", NestedClosedProjections.class);
+            Assertions.assertThat(scope.getCount()).isEqualTo(1);
+            sql = scope.getStatements().keySet().iterator().next().toLowerCase();
+        }
+
+        // then
+        // select 절에는 Member.username, Team.name과 팀이 있는지 구분할 Team.id만 있어야 한다. (생성일 등은 조회하지 않는다)
+        String selectClause = sql.substring(sql.indexOf("select") + "select".length(), sql.indexOf(" from "));
+        List<String> columns = new ArrayList<>();
+        for (String column : selectClause.split(",")) {
+            String expression = column.trim().split("\\s+")[0];
+            columns.add(expression.substring(expression.indexOf('.') + 1));
+        }
+        Assertions.assertThat(columns).containsExactly("username", "team_id", "name");
+
+        // 팀이 없는 회원만 중첩 프로젝션이 null, 이름이 null인 팀은 중첩 프로젝션이 있다.
+        Assertions.assertThat(result).hasSize(3);
+        Assertions.assertThat(result).extracting(NestedClosedProjections::getUsername).containsOnly("prunedMember");
+        Assertions.assertThat(result).filteredOn(nested -> nested.getTeam() != null)
+                .extracting(nested -> nested.getTeam().getName())
+                .containsExactlyInAnyOrder("TeamA", null);
+    }
+
     @Test
     public void nativeQuery() {
         // given
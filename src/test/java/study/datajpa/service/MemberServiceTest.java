@@ -0,0 +1,97 @@
+package study.datajpa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// 여러 스레드가 각자 트랜잭션을 커밋해야 하므로 테스트에 @Transactional을 붙이지 않는다.
+@SpringBootTest
+class MemberServiceTest {
+
+    private static final int THREADS = 4;
+    private static final int UPDATES_PER_THREAD = 10;
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MeterRegistry meterRegistry;
+
+    private final List<Member> saved = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        memberRepository.deleteAllInBatch(saved);
+    }
+
+    @Test
+    public void optimisticRetry() throws Exception {
+        // given
+        saved.add(memberRepository.save(new Member("optimisticMember", 0)));
+
+        // when
+        long elapsed = runConcurrently(username -> memberService.increaseAge(username), "optimisticMember");
+
+        // then
+        // 충돌한 트랜잭션은 다시 실행되므로 수정이 하나도 유실되지 않는다.
+        Member member = memberRepository.findById(saved.get(0).getId()).get();
+        Assertions.assertThat(member.getAge()).isEqualTo(THREADS * UPDATES_PER_THREAD);
+        Assertions.assertThat(member.getVersion()).isEqualTo((long) THREADS * UPDATES_PER_THREAD);
+        Assertions.assertThat(meterRegistry.get("optimistic.attempts")
+                .tag("name", "MemberService.increaseAge").tag("outcome", "success")
+                .summary().count()).isEqualTo(THREADS * UPDATES_PER_THREAD);
+
+        double retries = meterRegistry.find("optimistic.retries").counters().stream()
+                .mapToDouble(Counter::count).sum();
+        System.out.println("optimistic elapsed(ms) = " + elapsed + ", retries = " + retries);
+    }
+
+    @Test
+    public void pessimisticLock() throws Exception {
+        // given
+        saved.add(memberRepository.save(new Member("pessimisticMember", 0)));
+
+        // when
+        long elapsed = runConcurrently(username -> memberService.increaseAgeWithPessimisticLock(username), "pessimisticMember");
+
+        // then
+        Member member = memberRepository.findById(saved.get(0).getId()).get();
+        Assertions.assertThat(member.getAge()).isEqualTo(THREADS * UPDATES_PER_THREAD);
+
+        double lockWaitMillis = meterRegistry.get("lock.wait").timer().totalTime(TimeUnit.MILLISECONDS);
+        System.out.println("pessimistic elapsed(ms) = " + elapsed + ", lock wait(ms) = " + lockWaitMillis);
+    }
+
+    private long runConcurrently(Consumer<String> update, String username) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < UPDATES_PER_THREAD; j++) {
+                        update.accept(username);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}